@@ -0,0 +1,332 @@
+package com.jamascript.build;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Reads src/main/grammar/jamascript.grammar and writes GrammarTables.java
+// for the parser: FIRST and FOLLOW sets, and an LL(1) prediction table
+// per nonterminal. Run by the build in generate-sources, before the rest
+// is compiled, so it is compiled on its own at the project's source level
+// and depends on nothing but the JDK:
+//   java com.jamascript.build.GrammarGenerator <grammar file> <generated sources directory>
+public class GrammarGenerator {
+    // stands for the end of the input in FIRST and FOLLOW sets
+    private static final String END = "$";
+
+    private static class Alternative {
+        final String label;
+        final List<String> symbols;
+
+        Alternative(final String label, final List<String> symbols) {
+            this.label = label;
+            this.symbols = symbols;
+        }
+    }
+
+    private static class Rule {
+        final String name;
+        final List<Alternative> alternatives = new ArrayList<Alternative>();
+
+        Rule(final String name) {
+            this.name = name;
+        }
+    }
+
+    private final Map<String, Rule> rules = new LinkedHashMap<String, Rule>();
+    private final Map<String, Set<String>> first = new LinkedHashMap<String, Set<String>>();
+    private final Map<String, Set<String>> follow = new LinkedHashMap<String, Set<String>>();
+    private final Set<String> nullable = new LinkedHashSet<String>();
+
+    public static boolean isTerminal(final String symbol) {
+        return Character.isUpperCase(symbol.charAt(0));
+    }
+
+    public GrammarGenerator(final String grammar) {
+        final StringBuilder text = new StringBuilder();
+        for (final String line : grammar.split("\n")) {
+            final int comment = line.indexOf('#');
+            text.append((comment >= 0) ? line.substring(0, comment) : line).append('\n');
+        }
+
+        for (final String definition : text.toString().split(";")) {
+            if (definition.trim().isEmpty()) {
+                continue;
+            }
+            final int equals = definition.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("expected `=` in rule: " + definition.trim());
+            }
+            final Rule rule = new Rule(definition.substring(0, equals).trim());
+            if (rule.name.isEmpty() || isTerminal(rule.name) || rules.containsKey(rule.name)) {
+                throw new IllegalArgumentException("bad or repeated rule name: " + rule.name);
+            }
+            for (final String alternative : definition.substring(equals + 1).split("\\|")) {
+                final List<String> symbols = new ArrayList<String>();
+                String label = null;
+                for (final String symbol : alternative.trim().split("\\s+")) {
+                    if (symbol.isEmpty()) {
+                        continue;
+                    } else if (label != null) {
+                        throw new IllegalArgumentException("symbols after @" + label + " in " + rule.name);
+                    } else if (symbol.startsWith("@")) {
+                        label = symbol.substring(1);
+                    } else {
+                        symbols.add(symbol);
+                    }
+                }
+                if (label == null) {
+                    throw new IllegalArgumentException("alternative without a label in " + rule.name);
+                }
+                rule.alternatives.add(new Alternative(label, symbols));
+            }
+            rules.put(rule.name, rule);
+        }
+
+        for (final Rule rule : rules.values()) {
+            for (final Alternative alternative : rule.alternatives) {
+                for (final String symbol : alternative.symbols) {
+                    if (!isTerminal(symbol) && !rules.containsKey(symbol)) {
+                        throw new IllegalArgumentException("undefined nonterminal: " + symbol);
+                    }
+                }
+            }
+            first.put(rule.name, new LinkedHashSet<String>());
+            follow.put(rule.name, new LinkedHashSet<String>());
+        }
+        computeFirst();
+        computeFollow();
+    }
+
+    private void computeFirst() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (final Rule rule : rules.values()) {
+                for (final Alternative alternative : rule.alternatives) {
+                    changed |= first.get(rule.name).addAll(firstOf(alternative.symbols, 0));
+                    if (isNullable(alternative.symbols, 0)) {
+                        changed |= nullable.add(rule.name);
+                    }
+                }
+            }
+        }
+    }
+
+    private void computeFollow() {
+        follow.get(rules.keySet().iterator().next()).add(END);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (final Rule rule : rules.values()) {
+                for (final Alternative alternative : rule.alternatives) {
+                    for (int index = 0; index < alternative.symbols.size(); index++) {
+                        final String symbol = alternative.symbols.get(index);
+                        if (isTerminal(symbol)) {
+                            continue;
+                        }
+                        changed |= follow.get(symbol).addAll(firstOf(alternative.symbols, index + 1));
+                        if (isNullable(alternative.symbols, index + 1)) {
+                            changed |= follow.get(symbol).addAll(follow.get(rule.name));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // FIRST of symbols[from...]
+    private Set<String> firstOf(final List<String> symbols, final int from) {
+        final Set<String> result = new LinkedHashSet<String>();
+        for (int index = from; index < symbols.size(); index++) {
+            final String symbol = symbols.get(index);
+            if (isTerminal(symbol)) {
+                result.add(symbol);
+                break;
+            }
+            result.addAll(first.get(symbol));
+            if (!nullable.contains(symbol)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private boolean isNullable(final List<String> symbols, final int from) {
+        for (int index = from; index < symbols.size(); index++) {
+            if (!nullable.contains(symbols.get(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tokens that select each alternative of the rule. Throws if two
+    // alternatives share a token, as then the grammar is not LL(1).
+    private Map<String, Alternative> predictions(final Rule rule) {
+        final Map<String, Alternative> result = new LinkedHashMap<String, Alternative>();
+        for (final Alternative alternative : rule.alternatives) {
+            final Set<String> tokens = firstOf(alternative.symbols, 0);
+            if (isNullable(alternative.symbols, 0)) {
+                tokens.addAll(follow.get(rule.name));
+            }
+            for (final String token : tokens) {
+                final Alternative previous = result.put(token, alternative);
+                if (previous != null) {
+                    throw new IllegalArgumentException("grammar is not LL(1): " + token + " selects both " +
+                            rule.name + " @" + previous.label + " and @" + alternative.label);
+                }
+            }
+        }
+        return result;
+    }
+
+    // FIRST set of the nonterminal
+    public Set<String> first(final String nonterminal) {
+        return Collections.unmodifiableSet(first.get(nonterminal));
+    }
+
+    // FOLLOW set of the nonterminal, with $ for the end of the input
+    public Set<String> follow(final String nonterminal) {
+        return Collections.unmodifiableSet(follow.get(nonterminal));
+    }
+
+    public boolean isNullable(final String nonterminal) {
+        return nullable.contains(nonterminal);
+    }
+
+    // label of the alternative each token selects for the nonterminal;
+    // throws like generate if the rule is not LL(1)
+    public Map<String, String> predict(final String nonterminal) {
+        final Map<String, String> result = new LinkedHashMap<String, String>();
+        for (final Map.Entry<String, Alternative> entry : predictions(rules.get(nonterminal)).entrySet()) {
+            result.put(entry.getKey(), entry.getValue().label);
+        }
+        return result;
+    }
+
+    private static String constant(final String name) {
+        return name.toUpperCase();
+    }
+
+    private static String bits(final Set<String> tokens) {
+        if (tokens.isEmpty()) {
+            return "0L";
+        }
+        final StringBuilder result = new StringBuilder();
+        int count = 0;
+        for (final String token : tokens) {
+            if (count > 0) {
+                // three to a line
+                result.append((count % 3 == 0) ? "\n        | " : " | ");
+            }
+            count++;
+            result.append(token.equals(END) ? "END_BIT" : "bit(TokenKind." + token + ")");
+        }
+        return result.toString();
+    }
+
+    public String generate(final String source) {
+        final StringBuilder out = new StringBuilder();
+        out.append("package com.jamascript.parser;\n\n");
+        out.append("import com.jamascript.lexer.TokenKind;\n\n");
+        out.append("// Generated by GrammarGenerator from ").append(source).append("; do not edit.\n");
+        out.append("//\n");
+        out.append("// For each nonterminal N: FIRST_N and FOLLOW_N are sets of token kinds,\n");
+        out.append("// one bit per TokenKind ordinal and END_BIT for the end of the input.\n");
+        out.append("// The table N, indexed by column(kind), holds the N_* constant of the\n");
+        out.append("// alternative that kind selects, or 0 if it selects none.\n");
+        out.append("final class GrammarTables {\n");
+        out.append("    // column of the end of the input\n");
+        out.append("    static final int END = TokenKind.values().length;\n");
+        out.append("    static final long END_BIT = 1L << 63;\n\n");
+        out.append("    static {\n");
+        out.append("        if (END >= 63) {\n");
+        out.append("            throw new AssertionError(\"token kinds no longer fit a long\");\n");
+        out.append("        }\n");
+        out.append("    }\n\n");
+        out.append("    private GrammarTables() {}\n\n");
+        out.append("    private static long bit(final TokenKind kind) {\n");
+        out.append("        return 1L << kind.ordinal();\n");
+        out.append("    }\n\n");
+        out.append("    // kind, or null for the end of the input\n");
+        out.append("    static int column(final TokenKind kind) {\n");
+        out.append("        return (kind != null) ? kind.ordinal() : END;\n");
+        out.append("    }\n\n");
+        out.append("    static boolean contains(final long set, final TokenKind kind) {\n");
+        out.append("        return (set & ((kind != null) ? bit(kind) : END_BIT)) != 0;\n");
+        out.append("    }\n");
+
+        for (final Rule rule : rules.values()) {
+            final String name = constant(rule.name);
+            out.append("\n");
+            for (int index = 0; index < rule.alternatives.size(); index++) {
+                final Alternative alternative = rule.alternatives.get(index);
+                out.append("    // ").append((index == 0) ? rule.name + " = " : "| ");
+                for (final String symbol : alternative.symbols) {
+                    out.append(symbol).append(' ');
+                }
+                out.append('@').append(alternative.label).append('\n');
+            }
+            for (int index = 0; index < rule.alternatives.size(); index++) {
+                out.append("    static final int ").append(name).append('_')
+                   .append(constant(rule.alternatives.get(index).label))
+                   .append(" = ").append(index + 1).append(";\n");
+            }
+            out.append("    static final long FIRST_").append(name).append(" = ")
+               .append(bits(first.get(rule.name))).append(";\n");
+            out.append("    static final long FOLLOW_").append(name).append(" = ")
+               .append(bits(follow.get(rule.name))).append(";\n");
+            out.append("    static final boolean NULLABLE_").append(name).append(" = ")
+               .append(nullable.contains(rule.name)).append(";\n");
+            out.append("    static final byte[] ").append(name).append(" = new byte[END + 1];\n");
+            out.append("    static {\n");
+            for (final Map.Entry<String, Alternative> entry : predictions(rule).entrySet()) {
+                final String column = entry.getKey().equals(END)
+                    ? "END" : "TokenKind." + entry.getKey() + ".ordinal()";
+                out.append("        ").append(name).append('[').append(column).append("] = ")
+                   .append(name).append('_').append(constant(entry.getValue().label)).append(";\n");
+            }
+            out.append("    }\n");
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: GrammarGenerator <grammar file> <generated sources directory>");
+            System.exit(2);
+        }
+        final File grammar = new File(args[0]);
+        final File output = new File(args[1], "com/jamascript/parser/GrammarTables.java");
+
+        final String generated;
+        try {
+            generated = new GrammarGenerator(new String(Files.readAllBytes(grammar.toPath()),
+                                                        StandardCharsets.UTF_8))
+                .generate("src/main/grammar/" + grammar.getName());
+        } catch (final IllegalArgumentException e) {
+            System.err.println(grammar + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        output.getParentFile().mkdirs();
+        final PrintWriter writer = new PrintWriter(output, "UTF-8");
+        try {
+            writer.print(generated);
+        } finally {
+            writer.close();
+        }
+    }
+}
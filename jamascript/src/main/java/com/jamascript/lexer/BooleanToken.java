@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class BooleanToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.BOOLEAN;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof BooleanToken;
     }
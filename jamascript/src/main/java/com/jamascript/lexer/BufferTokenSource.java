@@ -0,0 +1,40 @@
+package com.jamascript.lexer;
+
+// TokenSource over tokens that were all lexed up front
+public class BufferTokenSource implements TokenSource {
+    private final TokenBuffer tokens;
+    private int position;
+
+    public BufferTokenSource(final TokenBuffer tokens) {
+        this.tokens = tokens;
+        this.position = 0;
+    }
+
+    public TokenKind peek(final int k) {
+        final int index = position + k;
+        return (index < tokens.size()) ? tokens.kind(index) : null;
+    }
+
+    public long peekSpan(final int k) {
+        return tokens.span(position + k);
+    }
+
+    public int peekPayload(final int k) {
+        return tokens.payload(position + k);
+    }
+
+    public CharSequence peekString(final int k) {
+        return tokens.string(position + k);
+    }
+
+    public void advance() {
+        if (position == tokens.size()) {
+            throw new IllegalStateException("no token to advance past");
+        }
+        position++;
+    }
+
+    public int position() {
+        return position;
+    }
+}
@@ -0,0 +1,59 @@
+package com.jamascript.lexer;
+
+import java.util.Arrays;
+
+// Tokenizer character classes for every char of the Basic Multilingual
+// Plane, two bits each, so non-ASCII names are classified without going
+// through Character. The plane is cut into 256 blocks of 256 chars and
+// identical blocks, most of which are all letters or all other, are
+// stored once, which keeps the table to a few KB.
+final class CharClasses {
+    private static final int BLOCK_LONGS = 256 * 2 / 64;
+
+    // index of each block in BITS, by the high byte of the char
+    private static final char[] BLOCKS = new char[256];
+
+    private static final long[] BITS;
+
+    static {
+        final long[] bits = new long[256 * BLOCK_LONGS];
+        final long[] block = new long[BLOCK_LONGS];
+        int distinct = 0;
+        for (int high = 0; high < 256; high++) {
+            Arrays.fill(block, 0);
+            for (int low = 0; low < 256; low++) {
+                final long charClass = Tokenizer.classifySlow((high << 8) | low);
+                block[low >>> 5] |= charClass << ((low & 31) << 1);
+            }
+            int found = 0;
+            while (found < distinct && !sameBlock(bits, found, block)) {
+                found++;
+            }
+            if (found == distinct) {
+                System.arraycopy(block, 0, bits, distinct * BLOCK_LONGS, BLOCK_LONGS);
+                distinct++;
+            }
+            BLOCKS[high] = (char) found;
+        }
+        BITS = Arrays.copyOf(bits, distinct * BLOCK_LONGS);
+    }
+
+    private CharClasses() {
+    }
+
+    private static boolean sameBlock(final long[] bits, final int index, final long[] block) {
+        for (int word = 0; word < BLOCK_LONGS; word++) {
+            if (bits[index * BLOCK_LONGS + word] != block[word]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same as Tokenizer.classifySlow(c). Surrogates are other: a pair has
+    // to be classified as one code point.
+    static int classify(final char c) {
+        final long word = BITS[BLOCKS[c >>> 8] * BLOCK_LONGS + ((c >>> 5) & 7)];
+        return (int) (word >>> ((c & 31) << 1)) & 3;
+    }
+}
@@ -3,21 +3,33 @@ package com.jamascript.lexer;
 public class ClassNameToken implements Token {
     public final String name;
 
-    public ClassNameToken(final String name){
+    public final int id;
+
+    public ClassNameToken(final String name) {
         this.name = name;
+        this.id = SymbolTable.global().intern(name);
+    }
+
+    public ClassNameToken(final int id) {
+        this.name = SymbolTable.global().name(id);
+        this.id = id;
+    }
+
+    public TokenKind kind() {
+        return TokenKind.CLASS_NAME;
     }
 
     public boolean equals(final Object other) {
         if(other instanceof ClassNameToken){
             final ClassNameToken asString = (ClassNameToken)other;
-            return name.equals(asString.name);
+            return id == asString.id;
         }else{
             return false;
         }
     }
 
     public int hashCode() {
-        return 1;
+        return id;
     }
 
     public String toString() {
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class ClassToken implements Token{
+    public TokenKind kind() {
+        return TokenKind.CLASS;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof ClassToken;
     }
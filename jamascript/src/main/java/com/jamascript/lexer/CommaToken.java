@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class CommaToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.COMMA;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof CommaToken;
     }
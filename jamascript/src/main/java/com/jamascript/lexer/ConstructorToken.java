@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class ConstructorToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.CONSTRUCTOR;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof ConstructorToken;
     }
@@ -0,0 +1,32 @@
+package com.jamascript.lexer;
+
+// A lexical error collected while recovering, instead of being thrown
+public class Diagnostic {
+    // packed source span of the offending text
+    public final long span;
+    public final String message;
+
+    public Diagnostic(final long span, final String message) {
+        this.span = span;
+        this.message = message;
+    }
+
+    // the message with the line and column of the span
+    public String describe(final LineIndex lines) {
+        return lines.describe(span) + ": " + message;
+    }
+
+    public boolean equals(final Object other) {
+        return (other instanceof Diagnostic &&
+                span == ((Diagnostic) other).span &&
+                message.equals(((Diagnostic) other).message));
+    }
+
+    public int hashCode() {
+        return (int) (span ^ (span >>> 32)) + message.hashCode();
+    }
+
+    public String toString() {
+        return "Diagnostic(" + Span.toString(span) + ", " + message + ")";
+    }
+}
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class DivideToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.DIVIDE;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof DivideToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class DotToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.DOT;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof DotToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class ElseToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.ELSE;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof ElseToken;
     }
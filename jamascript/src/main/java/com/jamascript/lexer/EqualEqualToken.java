@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class EqualEqualToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.EQUAL_EQUAL;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof EqualEqualToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class EqualToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.EQUAL;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof EqualToken;
     }
@@ -0,0 +1,21 @@
+package com.jamascript.lexer;
+
+// Stands in for text the tokenizer could not make sense of when it
+// recovers from errors; the matching Diagnostic says what went wrong.
+public class ErrorToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.ERROR;
+    }
+
+    public boolean equals(final Object other) {
+        return other instanceof ErrorToken;
+    }
+
+    public int hashCode() {
+        return 38;
+    }
+
+    public String toString() {
+        return "ErrorToken";
+    }
+}
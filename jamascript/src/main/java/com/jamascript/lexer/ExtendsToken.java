@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class ExtendsToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.EXTENDS;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof ExtendsToken;
     }
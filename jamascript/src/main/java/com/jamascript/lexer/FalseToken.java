@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class FalseToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.FALSE;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof FalseToken;
     }
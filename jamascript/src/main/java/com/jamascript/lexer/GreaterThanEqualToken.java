@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class GreaterThanEqualToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.GREATER_THAN_EQUAL;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof GreaterThanEqualToken;
     }
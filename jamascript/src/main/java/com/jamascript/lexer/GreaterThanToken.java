@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class GreaterThanToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.GREATER_THAN;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof GreaterThanToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class IfToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.IF;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof IfToken;
     }
@@ -2,6 +2,10 @@ package com.jamascript.lexer;
 
 public class IntToken implements Token {
     
+    public TokenKind kind() {
+        return TokenKind.INT;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof IntToken;
     }
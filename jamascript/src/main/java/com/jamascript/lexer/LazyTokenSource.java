@@ -0,0 +1,30 @@
+package com.jamascript.lexer;
+
+// Lexes only as far as the reader of the tokens has looked
+public class LazyTokenSource extends RingTokenSource {
+    private final Tokenizer tokenizer;
+
+    // classifying applies the program-wide name rules, see RingTokenSource
+    public LazyTokenSource(final Tokenizer tokenizer, final boolean classifying) {
+        super(classifying);
+        this.tokenizer = tokenizer;
+    }
+
+    protected boolean fetch() throws TokenizerException {
+        final TokenKind kind = tokenizer.nextKind();
+        if (kind == null) {
+            return false;
+        }
+        final int payload;
+        if (kind.isName()) {
+            payload = tokenizer.getTokenSymbol();
+        } else if (kind == TokenKind.NUMBER) {
+            payload = tokenizer.getTokenNumber();
+        } else {
+            payload = 0;
+        }
+        push(kind, tokenizer.getTokenSpan(), payload,
+             (kind == TokenKind.STRING_VALUE) ? tokenizer.getTokenString() : null);
+        return true;
+    }
+}
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class LeftCurlyBracketToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.LEFT_CURLY_BRACKET;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof LeftCurlyBracketToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class LeftParenthesisToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.LEFT_PARENTHESIS;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof LeftParenthesisToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class LeftSquaredBracketToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.LEFT_SQUARED_BRACKET;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof LeftSquaredBracketToken;
     }
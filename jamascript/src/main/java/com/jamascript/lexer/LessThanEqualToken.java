@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class LessThanEqualToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.LESS_THAN_EQUAL;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof LessThanEqualToken;
     }
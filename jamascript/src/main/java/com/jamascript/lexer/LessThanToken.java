@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class LessThanToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.LESS_THAN;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof LessThanToken;
     }
@@ -0,0 +1,91 @@
+package com.jamascript.lexer;
+
+import java.nio.ByteBuffer;
+
+// Maps offsets to line and column numbers. The offsets of line starts
+// are only collected the first time a position is looked up, so lexing
+// never does per-line bookkeeping; lookups are then a binary search.
+// Lines and columns count from 1. Over UTF-8 bytes, columns are in bytes.
+public class LineIndex {
+    private final CharSequence text;
+    private final ByteBuffer bytes;
+
+    // offset of the first character of each line; built on first use
+    private int[] lineStarts;
+    private int lineCount;
+
+    public LineIndex(final CharSequence text) {
+        this.text = text;
+        this.bytes = null;
+    }
+
+    public LineIndex(final ByteBuffer bytes) {
+        this.text = null;
+        this.bytes = bytes.slice();
+    }
+
+    private int sourceLength() {
+        return (text != null) ? text.length() : bytes.limit();
+    }
+
+    private boolean isNewline(final int offset) {
+        return (text != null) ? text.charAt(offset) == '\n' : bytes.get(offset) == '\n';
+    }
+
+    private void build() {
+        int[] starts = new int[64];
+        int count = 1;
+        final int length = sourceLength();
+        for (int offset = 0; offset < length; offset++) {
+            if (isNewline(offset)) {
+                if (count == starts.length) {
+                    final int[] larger = new int[starts.length * 2];
+                    System.arraycopy(starts, 0, larger, 0, count);
+                    starts = larger;
+                }
+                starts[count++] = offset + 1;
+            }
+        }
+        lineStarts = starts;
+        lineCount = count;
+    }
+
+    public int lineCount() {
+        if (lineStarts == null) {
+            build();
+        }
+        return lineCount;
+    }
+
+    // 1-based line holding offset
+    public int line(final int offset) {
+        if (lineStarts == null) {
+            build();
+        }
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (lineStarts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    // 1-based column of offset within its line
+    public int column(final int offset) {
+        return offset - lineStarts[line(offset) - 1] + 1;
+    }
+
+    // "line:column" of the start of the span
+    public String describe(final long span) {
+        if (!Span.isKnown(span)) {
+            return "unknown position";
+        }
+        final int start = Span.start(span);
+        return line(start) + ":" + column(start);
+    }
+}
@@ -3,21 +3,33 @@ package com.jamascript.lexer;
 public class MethodNameToken implements Token{
     public final String name;
 
-    public MethodNameToken(final String name){
+    public final int id;
+
+    public MethodNameToken(final String name) {
         this.name = name;
+        this.id = SymbolTable.global().intern(name);
+    }
+
+    public MethodNameToken(final int id) {
+        this.name = SymbolTable.global().name(id);
+        this.id = id;
+    }
+
+    public TokenKind kind() {
+        return TokenKind.METHOD_NAME;
     }
 
     public boolean equals(final Object other) {
         if(other instanceof MethodNameToken){
             final MethodNameToken asString = (MethodNameToken)other;
-            return name.equals(asString.name);
+            return id == asString.id;
         }else{
             return false;
         }
     }
 
     public int hashCode() {
-        return 20 + name.hashCode();
+        return 20 + id;
     }
 
     public String toString() {
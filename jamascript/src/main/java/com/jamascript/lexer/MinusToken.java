@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class MinusToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.MINUS;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof MinusToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class MultiplyToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.MULTIPLY;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof MultiplyToken;
     }
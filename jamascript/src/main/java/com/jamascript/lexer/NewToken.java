@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class NewToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.NEW;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof NewToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class NotToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.NOT;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof NotToken;
     }
@@ -3,8 +3,16 @@ package com.jamascript.lexer;
 public class NumberToken implements Token {
     public final int number;
 
+    public NumberToken(final int number) {
+        this.number = number;
+    }
+
     public NumberToken(final String num) {
-        this.number = Integer.parseInt(num);
+        this(Integer.parseInt(num));
+    }
+
+    public TokenKind kind() {
+        return TokenKind.NUMBER;
     }
 
     public boolean equals(final Object other) {
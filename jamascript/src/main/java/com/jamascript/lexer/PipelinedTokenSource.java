@@ -0,0 +1,143 @@
+package com.jamascript.lexer;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Lexes on a thread of its own while the tokens are being read, handing
+// them over in batches through a bounded queue. The lexer stalls once it
+// is QUEUED_BATCHES ahead, so memory stays bounded however large the
+// input is. close() stops the lexer if the tokens are no longer needed;
+// a reader that gives up early, say on a ParseException, should close
+// the source in a finally block. Failing that, a stalled lexer checks
+// every STALL_CHECK_MILLIS whether the source is still reachable, and
+// stops once it has been collected.
+public class PipelinedTokenSource extends RingTokenSource implements Closeable {
+    private static final int BATCH_SIZE = 512;
+    private static final int QUEUED_BATCHES = 4;
+    private static final long STALL_CHECK_MILLIS = 1000;
+
+    // Tokens lexed in one go. The last batch of the stream has end set,
+    // and failure if lexing stopped with an error: a TokenizerException,
+    // or anything unchecked the tokenizer or its input threw, which the
+    // reader rethrows rather than waiting for batches that never come.
+    private static final class Batch {
+        final TokenKind[] kinds = new TokenKind[BATCH_SIZE];
+        final long[] spans = new long[BATCH_SIZE];
+        final int[] payloads = new int[BATCH_SIZE];
+        final CharSequence[] strings = new CharSequence[BATCH_SIZE];
+        int size = 0;
+        boolean end = false;
+        Throwable failure = null;
+    }
+
+    private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<Batch>(QUEUED_BATCHES);
+    private final Thread producer;
+
+    // batch being read, and the index of its next token
+    private Batch batch;
+    private int index;
+
+    // classifying applies the program-wide name rules, see RingTokenSource
+    public PipelinedTokenSource(final Tokenizer tokenizer, final boolean classifying) {
+        super(classifying);
+        producer = new Thread(new Producer(tokenizer, queue, this), "jamascript-lexer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    // Runs on the producer thread. Holds the reader weakly, so that an
+    // abandoned source can still be collected.
+    private static final class Producer implements Runnable {
+        private final Tokenizer tokenizer;
+        private final BlockingQueue<Batch> queue;
+        private final WeakReference<PipelinedTokenSource> reader;
+
+        Producer(final Tokenizer tokenizer,
+                 final BlockingQueue<Batch> queue,
+                 final PipelinedTokenSource reader) {
+            this.tokenizer = tokenizer;
+            this.queue = queue;
+            this.reader = new WeakReference<PipelinedTokenSource>(reader);
+        }
+
+        public void run() {
+            try {
+                boolean end = false;
+                while (!end) {
+                    final Batch next = new Batch();
+                    try {
+                        while (next.size < BATCH_SIZE) {
+                            final TokenKind kind = tokenizer.nextKind();
+                            if (kind == null) {
+                                end = true;
+                                break;
+                            }
+                            next.kinds[next.size] = kind;
+                            next.spans[next.size] = tokenizer.getTokenSpan();
+                            if (kind.isName()) {
+                                next.payloads[next.size] = tokenizer.getTokenSymbol();
+                            } else if (kind == TokenKind.NUMBER) {
+                                next.payloads[next.size] = tokenizer.getTokenNumber();
+                            } else if (kind == TokenKind.STRING_VALUE) {
+                                next.strings[next.size] = tokenizer.getTokenString();
+                            }
+                            next.size++;
+                        }
+                    } catch (final TokenizerException e) {
+                        next.failure = e;
+                        end = true;
+                    } catch (final RuntimeException e) {
+                        next.failure = e;
+                        end = true;
+                    } catch (final Error e) {
+                        next.failure = e;
+                        end = true;
+                    }
+                    next.end = end;
+                    while (!queue.offer(next, STALL_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (reader.get() == null) {
+                            // dropped without close(); nobody will read the rest
+                            return;
+                        }
+                    }
+                }
+            } catch (final InterruptedException e) {
+                // closed by the reader; nobody is waiting for the rest
+            }
+        }
+    }
+
+    protected boolean fetch() throws TokenizerException {
+        while (batch == null || index == batch.size) {
+            if (batch != null && batch.end) {
+                if (batch.failure instanceof TokenizerException) {
+                    throw (TokenizerException) batch.failure;
+                } else if (batch.failure instanceof RuntimeException) {
+                    throw (RuntimeException) batch.failure;
+                } else if (batch.failure != null) {
+                    throw (Error) batch.failure;
+                }
+                return false;
+            }
+            try {
+                batch = queue.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TokenizerException("interrupted while waiting for tokens");
+            }
+            index = 0;
+        }
+        push(batch.kinds[index], batch.spans[index], batch.payloads[index], batch.strings[index]);
+        batch.strings[index] = null;
+        index++;
+        return true;
+    }
+
+    // stops the lexer thread; the tokens already handed over stay readable
+    public void close() {
+        producer.interrupt();
+    }
+}
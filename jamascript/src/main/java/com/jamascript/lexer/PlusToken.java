@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class PlusToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.PLUS;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof PlusToken;
     }
@@ -2,6 +2,10 @@ package com.jamascript.lexer;
 
 public class PrintlnToken implements Token 
 {
+    public TokenKind kind() {
+        return TokenKind.PRINTLN;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof PrintlnToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class QuotationMarkToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.QUOTATION_MARK;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof QuotationMarkToken;
     }
@@ -2,6 +2,10 @@ package com.jamascript.lexer;
 
 public class ReturnToken implements Token {
 
+    public TokenKind kind() {
+        return TokenKind.RETURN;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof ReturnToken;
     }
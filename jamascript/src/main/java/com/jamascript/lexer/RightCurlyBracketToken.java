@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class RightCurlyBracketToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.RIGHT_CURLY_BRACKET;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof RightCurlyBracketToken;
     }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class RightParenthesisToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.RIGHT_PARENTHESIS;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof RightParenthesisToken;
     }
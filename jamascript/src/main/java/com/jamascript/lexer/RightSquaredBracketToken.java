@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class RightSquaredBracketToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.RIGHT_SQUARED_BRACKET;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof RightSquaredBracketToken;
     }
@@ -0,0 +1,156 @@
+package com.jamascript.lexer;
+
+// TokenSource that produces tokens on demand into a ring buffer. The
+// ring only grows when something peeks further ahead than it holds, so
+// its size is bounded by the deepest lookahead, not by the input.
+//
+// When classifying, names get the same context rules as
+// Tokenizer.tokenizeProgramBuffer. Those can change a name's kind once
+// the token after it is known, so one extra token is always produced
+// before a name is shown.
+public abstract class RingTokenSource implements TokenSource {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final boolean classifying;
+
+    private TokenKind[] kinds;
+    private long[] spans;
+    private int[] payloads;
+    private CharSequence[] strings;
+
+    // ring index of the current token, and tokens buffered from there
+    private int head;
+    private int count;
+    private int position;
+    private boolean ended;
+
+    // a lexical error stops the stream; it is rethrown on every later read
+    private TokenizerException failure;
+
+    // kinds of the last two tokens pushed, which may already be dropped
+    private TokenKind lastKind;
+    private TokenKind secondLastKind;
+
+    protected RingTokenSource(final boolean classifying) {
+        this.classifying = classifying;
+        kinds = new TokenKind[INITIAL_CAPACITY];
+        spans = new long[INITIAL_CAPACITY];
+        payloads = new int[INITIAL_CAPACITY];
+        strings = new CharSequence[INITIAL_CAPACITY];
+    }
+
+    // Produces at least one more token with push, or returns false at
+    // the end of the input
+    protected abstract boolean fetch() throws TokenizerException;
+
+    protected final void push(final TokenKind scanned,
+                              final long span,
+                              final int payload,
+                              final CharSequence string) {
+        if (count == kinds.length) {
+            grow();
+        }
+        TokenKind kind = scanned;
+        if (classifying) {
+            kind = Tokenizer.nameKind(scanned, lastKind);
+            final TokenKind revised = Tokenizer.revisedPreviousKind(kind, lastKind, secondLastKind);
+            if (revised != null) {
+                // the previous token is still buffered: it has not been shown
+                kinds[slot(count - 1)] = revised;
+                lastKind = revised;
+            }
+        }
+        final int slot = slot(count);
+        kinds[slot] = kind;
+        spans[slot] = span;
+        payloads[slot] = payload;
+        strings[slot] = string;
+        count++;
+        secondLastKind = lastKind;
+        lastKind = kind;
+    }
+
+    private int slot(final int k) {
+        return (head + k) & (kinds.length - 1);
+    }
+
+    // doubles the ring, moving the buffered tokens to its start
+    private void grow() {
+        final int capacity = kinds.length * 2;
+        final TokenKind[] newKinds = new TokenKind[capacity];
+        final long[] newSpans = new long[capacity];
+        final int[] newPayloads = new int[capacity];
+        final CharSequence[] newStrings = new CharSequence[capacity];
+        for (int k = 0; k < count; k++) {
+            final int slot = slot(k);
+            newKinds[k] = kinds[slot];
+            newSpans[k] = spans[slot];
+            newPayloads[k] = payloads[slot];
+            newStrings[k] = strings[slot];
+        }
+        kinds = newKinds;
+        spans = newSpans;
+        payloads = newPayloads;
+        strings = newStrings;
+        head = 0;
+    }
+
+    // true once token k is buffered and final
+    private boolean fill(final int k) throws TokenizerException {
+        final int needed = classifying ? k + 2 : k + 1;
+        while (count < needed && !ended) {
+            if (failure != null) {
+                throw failure;
+            }
+            try {
+                if (!fetch()) {
+                    ended = true;
+                }
+            } catch (final TokenizerException e) {
+                failure = e;
+                throw e;
+            }
+        }
+        return k < count;
+    }
+
+    public TokenKind peek(final int k) throws TokenizerException {
+        return fill(k) ? kinds[slot(k)] : null;
+    }
+
+    private int checkedSlot(final int k) throws TokenizerException {
+        if (!fill(k)) {
+            throw new IllegalStateException("no token " + k + " places ahead");
+        }
+        return slot(k);
+    }
+
+    public long peekSpan(final int k) throws TokenizerException {
+        return spans[checkedSlot(k)];
+    }
+
+    public int peekPayload(final int k) throws TokenizerException {
+        return payloads[checkedSlot(k)];
+    }
+
+    public CharSequence peekString(final int k) throws TokenizerException {
+        return strings[checkedSlot(k)];
+    }
+
+    public void advance() throws TokenizerException {
+        final int slot = checkedSlot(0);
+        strings[slot] = null;
+        head = (head + 1) & (kinds.length - 1);
+        count--;
+        position++;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    // slots currently allocated; the most tokens ever held at once
+    public int capacity() {
+        return kinds.length;
+    }
+}
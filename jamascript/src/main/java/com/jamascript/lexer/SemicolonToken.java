@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class SemicolonToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.SEMICOLON;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof SemicolonToken;
     }
@@ -0,0 +1,70 @@
+package com.jamascript.lexer;
+
+// Read-only view of chars[start, start + length) that shares the
+// array instead of copying it. Used for string literal values, which
+// point straight into the tokenizer's input.
+public class SourceSlice implements CharSequence {
+    private final char[] chars;
+    private final int start;
+    private final int length;
+
+    public SourceSlice(final char[] chars, final int start, final int length) {
+        this.chars = chars;
+        this.start = start;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return chars[start + index];
+    }
+
+    public CharSequence subSequence(final int from, final int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + "), length " + length);
+        }
+        return new SourceSlice(chars, start + from, to - from);
+    }
+
+    // copies the chars; only needed when a String is really required
+    public String toString() {
+        return new String(chars, start, length);
+    }
+
+    public boolean equals(final Object other) {
+        return (other instanceof SourceSlice &&
+                contentEquals(this, (SourceSlice) other));
+    }
+
+    public int hashCode() {
+        return contentHash(this);
+    }
+
+    // compares the characters of any two sequences, e.g. a slice and a String
+    public static boolean contentEquals(final CharSequence first, final CharSequence second) {
+        if (first.length() != second.length()) {
+            return false;
+        }
+        for (int index = 0; index < first.length(); index++) {
+            if (first.charAt(index) != second.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // same value String.hashCode gives for the same characters
+    public static int contentHash(final CharSequence sequence) {
+        int hash = 0;
+        for (int index = 0; index < sequence.length(); index++) {
+            hash = 31 * hash + sequence.charAt(index);
+        }
+        return hash;
+    }
+}
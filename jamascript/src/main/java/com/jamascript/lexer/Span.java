@@ -0,0 +1,46 @@
+package com.jamascript.lexer;
+
+// A source range packed into one long: the start offset in the high
+// 32 bits and the length in the low 32. Keeping spans as plain longs
+// means tracking positions costs no objects.
+public final class Span {
+    // span of something that did not come from source text
+    public static final long NONE = pack(TokenBuffer.NO_POSITION, 0);
+
+    private Span() {}
+
+    public static long pack(final int start, final int length) {
+        return ((long) start << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    public static int start(final long span) {
+        return (int) (span >> 32);
+    }
+
+    public static int length(final long span) {
+        return (int) span;
+    }
+
+    public static int end(final long span) {
+        return start(span) + length(span);
+    }
+
+    public static boolean isKnown(final long span) {
+        return start(span) >= 0;
+    }
+
+    // smallest span covering both
+    public static long cover(final long first, final long second) {
+        if (!isKnown(first)) {
+            return second;
+        } else if (!isKnown(second)) {
+            return first;
+        }
+        final int start = Math.min(start(first), start(second));
+        return pack(start, Math.max(end(first), end(second)) - start);
+    }
+
+    public static String toString(final long span) {
+        return isKnown(span) ? ("[" + start(span) + ", " + end(span) + ")") : "[unknown]";
+    }
+}
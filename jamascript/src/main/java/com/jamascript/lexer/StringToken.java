@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class StringToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.STRING;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof StringToken;
     }
@@ -1,22 +1,28 @@
 package com.jamascript.lexer;
 
 public class StringValToken implements Token{
-    public final String value;
+    // a SourceSlice when lexed from source without escapes
+    public final CharSequence value;
 
-    public StringValToken(final String value){
+    public StringValToken(final CharSequence value){
         this.value = value;
     }
+
+    public TokenKind kind() {
+        return TokenKind.STRING_VALUE;
+    }
+
     public boolean equals(final Object other){
         if(other instanceof StringValToken){
             final StringValToken asString = (StringValToken)other;
-            return value.equals(asString.value);
+            return SourceSlice.contentEquals(value, asString.value);
         }else{
             return false;
         }
     }
 
     public int hashCode(){
-        return 33 + value.hashCode();
+        return 33 + SourceSlice.contentHash(value);
     }
 
     public String toString(){
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class SuperToken implements Token{
+    public TokenKind kind() {
+        return TokenKind.SUPER;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof SuperToken;
     }
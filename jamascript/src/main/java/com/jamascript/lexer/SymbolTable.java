@@ -0,0 +1,169 @@
+package com.jamascript.lexer;
+
+// Process-wide table of identifiers. Each distinct name is stored once
+// and gets a dense int id, counting up from 0, that never changes, so
+// names can be compared by id and later phases can index arrays by it.
+// Names are never removed. All methods are thread-safe: names that are
+// already known are found without locking, so tokenizers running on
+// several threads only contend when they add new names.
+public class SymbolTable {
+    private static final SymbolTable GLOBAL = new SymbolTable();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The arrays are only replaced, never shrunk, while holding the lock.
+    // names[id] and hashes[id] describe symbol id; slots is open
+    // addressing over ids, holding id + 1 and 0 for an empty slot.
+    private static final class Table {
+        final String[] names;
+        final int[] hashes;
+        final int[] slots;
+
+        Table(final String[] names, final int[] hashes, final int[] slots) {
+            this.names = names;
+            this.hashes = hashes;
+            this.slots = slots;
+        }
+    }
+
+    private volatile Table table;
+
+    // written after everything describing the new symbols, so a reader
+    // that sees an id below size also sees its name
+    private volatile int size;
+
+    public SymbolTable() {
+        table = new Table(new String[INITIAL_CAPACITY],
+                          new int[INITIAL_CAPACITY],
+                          new int[INITIAL_CAPACITY * 2]);
+        size = 0;
+    }
+
+    // the table every token and AST name interns into
+    public static SymbolTable global() {
+        return GLOBAL;
+    }
+
+    private static int hash(final char[] chars, final int start, final int length) {
+        int hash = 0;
+        for (int index = start; index < start + length; index++) {
+            hash = 31 * hash + chars[index];
+        }
+        // same value as String.hashCode, spread over the low bits
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(final String name, final char[] chars, final int start, final int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (name.charAt(index) != chars[start + index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Probes for the name; returns its id, or -1 at the first empty slot.
+    // Ids at or above known may not be fully visible yet and also give -1.
+    private static int find(final Table current,
+                            final int known,
+                            final int hash,
+                            final char[] chars,
+                            final int start,
+                            final int length) {
+        final int mask = current.slots.length - 1;
+        int slot = hash & mask;
+        while (current.slots[slot] != 0) {
+            final int id = current.slots[slot] - 1;
+            if (id >= known) {
+                return -1;
+            }
+            if (current.hashes[id] == hash && matches(current.names[id], chars, start, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Id of the name in chars[start, start + length). No String is built
+    // unless the name has not been seen before.
+    public int intern(final char[] chars, final int start, final int length) {
+        final int hash = hash(chars, start, length);
+        final int known = size;
+        final int id = find(table, known, hash, chars, start, length);
+        return (id >= 0) ? id : add(hash, chars, start, length);
+    }
+
+    public int intern(final String name) {
+        return intern(name.toCharArray(), 0, name.length());
+    }
+
+    private synchronized int add(final int hash, final char[] chars, final int start, final int length) {
+        // another thread may have added it since the unlocked lookup
+        final int existing = find(table, size, hash, chars, start, length);
+        if (existing >= 0) {
+            return existing;
+        }
+
+        Table current = table;
+        final int id = size;
+        if (id == current.names.length) {
+            current = grow(current, id);
+        }
+        current.names[id] = new String(chars, start, length);
+        current.hashes[id] = hash;
+
+        // keep the slots at most half full
+        if ((id + 1) * 2 > current.slots.length) {
+            current = rehash(current, id + 1);
+        } else {
+            final int mask = current.slots.length - 1;
+            int slot = hash & mask;
+            while (current.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            current.slots[slot] = id + 1;
+        }
+
+        table = current;
+        size = id + 1;
+        return id;
+    }
+
+    private static Table grow(final Table current, final int count) {
+        final String[] names = new String[count * 2];
+        System.arraycopy(current.names, 0, names, 0, count);
+        final int[] hashes = new int[count * 2];
+        System.arraycopy(current.hashes, 0, hashes, 0, count);
+        return new Table(names, hashes, current.slots);
+    }
+
+    // new slots for the first count symbols
+    private static Table rehash(final Table current, final int count) {
+        final int[] slots = new int[current.slots.length * 2];
+        final int mask = slots.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = current.hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+        return new Table(current.names, current.hashes, slots);
+    }
+
+    public String name(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("unknown symbol id: " + id);
+        }
+        return table.names[id];
+    }
+
+    // number of symbols so far; ids are below this
+    public int size() {
+        return size;
+    }
+}
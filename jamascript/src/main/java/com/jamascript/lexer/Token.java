@@ -1,9 +1,11 @@
 package com.jamascript.lexer;
 
 public interface Token {
+    public TokenKind kind();
+
     public boolean equals(final Object other);
 
     public int hashCode();
 
     public String toString();
-}
\ No newline at end of file
+}
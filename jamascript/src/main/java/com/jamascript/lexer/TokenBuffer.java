@@ -0,0 +1,213 @@
+package com.jamascript.lexer;
+
+import java.util.List;
+import java.util.ArrayList;
+
+// Tokens stored column-wise: parallel arrays hold each token's kind,
+// packed source span (see Span) and payload. Names are SymbolTable ids,
+// string values are kept in a side list and the payload is their index
+// there, and numbers keep their value in the payload directly. Token
+// objects are only built on request.
+public class TokenBuffer {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // start of tokens that were not lexed from source text
+    public static final int NO_POSITION = -1;
+
+    private int[] kinds;
+    private long[] spans;
+    private int[] payloads;
+    private int size;
+
+    // values of string literals, usually SourceSlices over the input
+    private final List<CharSequence> strings;
+
+    public TokenBuffer(final int capacity) {
+        final int initial = Math.max(capacity, 1);
+        kinds = new int[initial];
+        spans = new long[initial];
+        payloads = new int[initial];
+        size = 0;
+        strings = new ArrayList<CharSequence>();
+    }
+
+    public TokenBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenKind kind(final int index) {
+        return TokenKind.fromOrdinal(kinds[index]);
+    }
+
+    public long span(final int index) {
+        return spans[index];
+    }
+
+    public int start(final int index) {
+        return Span.start(spans[index]);
+    }
+
+    public int length(final int index) {
+        return Span.length(spans[index]);
+    }
+
+    public int payload(final int index) {
+        return payloads[index];
+    }
+
+    // name of a variable, class name or method name token
+    public String name(final int index) {
+        return SymbolTable.global().name(payloads[index]);
+    }
+
+    // value of a string literal token, without copying it
+    public CharSequence string(final int index) {
+        return strings.get(payloads[index]);
+    }
+
+    // SymbolTable id of a variable, class name or method name token
+    public int symbol(final int index) {
+        return payloads[index];
+    }
+
+    public int number(final int index) {
+        return payloads[index];
+    }
+
+    // reclassifies a token, e.g. a name once its context is known
+    public void setKind(final int index, final TokenKind kind) {
+        kinds[index] = kind.ordinal();
+    }
+
+    public void add(final TokenKind kind,
+                    final int start,
+                    final int length,
+                    final int payload) {
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = kind.ordinal();
+        spans[size] = Span.pack(start, length);
+        payloads[size] = payload;
+        size++;
+    }
+
+    public void addName(final TokenKind kind,
+                        final int start,
+                        final int length,
+                        final String name) {
+        add(kind, start, length, SymbolTable.global().intern(name));
+    }
+
+    public void addString(final int start, final int length, final CharSequence value) {
+        add(TokenKind.STRING_VALUE, start, length, strings.size());
+        strings.add(value);
+    }
+
+    // Adds all of other's tokens after these ones. Spans are copied as
+    // they are, so both buffers should use offsets into the same input.
+    public void append(final TokenBuffer other) {
+        ensureCapacity(size + other.size);
+        final int stringBase = strings.size();
+        System.arraycopy(other.kinds, 0, kinds, size, other.size);
+        System.arraycopy(other.spans, 0, spans, size, other.size);
+        System.arraycopy(other.payloads, 0, payloads, size, other.size);
+        if (stringBase > 0) {
+            final int stringValue = TokenKind.STRING_VALUE.ordinal();
+            for (int index = size; index < size + other.size; index++) {
+                if (kinds[index] == stringValue) {
+                    payloads[index] += stringBase;
+                }
+            }
+        }
+        strings.addAll(other.strings);
+        size += other.size;
+    }
+
+    // Adds other's tokens [from, to) with their offsets moved by shift
+    public void appendRange(final TokenBuffer other, final int from, final int to, final int shift) {
+        ensureCapacity(size + to - from);
+        final int stringValue = TokenKind.STRING_VALUE.ordinal();
+        for (int index = from; index < to; index++) {
+            final long span = other.spans[index];
+            kinds[size] = other.kinds[index];
+            spans[size] = Span.pack(Span.start(span) + shift, Span.length(span));
+            if (other.kinds[index] == stringValue) {
+                payloads[size] = strings.size();
+                strings.add(other.strings.get(other.payloads[index]));
+            } else {
+                payloads[size] = other.payloads[index];
+            }
+            size++;
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        while (kinds.length < capacity) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        final int capacity = kinds.length * 2;
+        kinds = copyOf(kinds, capacity);
+        payloads = copyOf(payloads, capacity);
+        final long[] largerSpans = new long[capacity];
+        System.arraycopy(spans, 0, largerSpans, 0, size);
+        spans = largerSpans;
+    }
+
+    private static int[] copyOf(final int[] array, final int capacity) {
+        final int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    // builds the token object for one entry; meant for diagnostics
+    public Token token(final int index) {
+        final TokenKind kind = kind(index);
+        final CharSequence text = (kind == TokenKind.STRING_VALUE) ? string(index) : null;
+        return kind.makeToken(text, payloads[index]);
+    }
+
+    public List<Token> toList() {
+        final List<Token> tokens = new ArrayList<Token>(size);
+        for (int index = 0; index < size; index++) {
+            tokens.add(token(index));
+        }
+        return tokens;
+    }
+
+    // Packs already built tokens; they have no source positions
+    public static TokenBuffer fromTokens(final List<Token> tokens) {
+        final TokenBuffer buffer = new TokenBuffer(tokens.size());
+        for (final Token token : tokens) {
+            final TokenKind kind = token.kind();
+            switch (kind) {
+                case VARIABLE:
+                    buffer.add(kind, NO_POSITION, 0, ((VariableToken) token).id);
+                    break;
+                case CLASS_NAME:
+                    buffer.add(kind, NO_POSITION, 0, ((ClassNameToken) token).id);
+                    break;
+                case METHOD_NAME:
+                    buffer.add(kind, NO_POSITION, 0, ((MethodNameToken) token).id);
+                    break;
+                case STRING_VALUE:
+                    buffer.addString(NO_POSITION, 0, ((StringValToken) token).value);
+                    break;
+                case NUMBER:
+                    buffer.add(kind, NO_POSITION, 0, ((NumberToken) token).number);
+                    break;
+                default:
+                    buffer.add(kind, NO_POSITION, 0, 0);
+                    break;
+            }
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,352 @@
+package com.jamascript.lexer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Opt-in cache of lexed programs on disk, one file per distinct source
+// text, named by the SHA-256 of VERSION and the text. A hit maps the
+// file and decodes it instead of running the Tokenizer. Files are
+// touched when read, and once the directory grows past maxBytes the
+// least recently used ones are deleted.
+//
+// File layout, all integers as unsigned LEB128 varints (signed ones
+// zigzag encoded first):
+//   magic "JTK2"
+//   VERSION, as length + UTF-8 bytes
+//   name count, then each name as length + UTF-8 bytes
+//   token count, then per token:
+//     kind ordinal
+//     start, as a signed delta from the end of the previous token
+//     length
+//     payload: name index for names, signed value for numbers,
+//              length + UTF-8 bytes for strings, nothing otherwise
+// Symbol ids are only meaningful inside one process, so names are
+// stored by text and interned again on load.
+public class TokenCache {
+    private static final byte[] MAGIC = { 'J', 'T', 'K', '2' };
+    private static final String SUFFIX = ".tokens";
+
+    // The lexer that wrote a file: Tokenizer.VERSION, and the TokenKind
+    // constants in order, as kinds are stored by ordinal. A file from any
+    // other lexer is a miss. Being part of the file name too, it keeps two
+    // lexers that share a directory from replacing each other's files.
+    public static final String VERSION = "lexer " + Tokenizer.VERSION + ", kinds " + kindsHash();
+
+    private final File directory;
+    private final long maxBytes;
+
+    public TokenCache(final File directory, final long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    // Tokens of source, from the cache when possible. Misses are lexed
+    // with Tokenizer.tokenizeProgramBuffer and stored.
+    public TokenBuffer tokenize(final String source) throws TokenizerException, IOException {
+        final TokenBuffer cached = load(source);
+        if (cached != null) {
+            return cached;
+        }
+        final TokenBuffer tokens = new Tokenizer(source).tokenizeProgramBuffer();
+        store(source, tokens);
+        return tokens;
+    }
+
+    // cached tokens of source, or null if there are none
+    public TokenBuffer load(final String source) throws IOException {
+        final File file = fileFor(source);
+        final RandomAccessFile input;
+        try {
+            input = new RandomAccessFile(file, "r");
+        } catch (final FileNotFoundException e) {
+            // never stored, or evicted; maybe just now by another process
+            return null;
+        }
+        final TokenBuffer tokens;
+        try {
+            final FileChannel channel = input.getChannel();
+            tokens = decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            input.close();
+        }
+
+        if (tokens == null) {
+            // corrupt or from another format; lex again next time
+            file.delete();
+        } else {
+            file.setLastModified(System.currentTimeMillis());
+        }
+        return tokens;
+    }
+
+    public void store(final String source, final TokenBuffer tokens) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("cannot create cache directory " + directory);
+        }
+        final File file = fileFor(source);
+        // a file of its own, as another process may be storing the same source
+        final File partial = File.createTempFile(file.getName(), ".tmp", directory);
+
+        boolean written = false;
+        try {
+            final OutputStream output = new FileOutputStream(partial);
+            try {
+                output.write(encode(tokens));
+            } finally {
+                output.close();
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                partial.delete();
+            }
+        }
+        // readers only ever see complete files
+        if (!partial.renameTo(file)) {
+            file.delete();
+            if (!partial.renameTo(file)) {
+                partial.delete();
+                throw new IOException("cannot write cache file " + file);
+            }
+        }
+        evict(file);
+    }
+
+    // Deletes least recently used files until the cache fits in maxBytes,
+    // sparing the file just written
+    private void evict(final File keep) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final List<File> entries = new ArrayList<File>();
+        long total = 0;
+        for (final File file : files) {
+            if (file.getName().endsWith(SUFFIX)) {
+                entries.add(file);
+                total += file.length();
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        final File[] oldestFirst = entries.toArray(new File[entries.size()]);
+        Arrays.sort(oldestFirst, new Comparator<File>() {
+            public int compare(final File first, final File second) {
+                final long difference = first.lastModified() - second.lastModified();
+                return (difference < 0) ? -1 : ((difference > 0) ? 1 : 0);
+            }
+        });
+        for (int index = 0; index < oldestFirst.length && total > maxBytes; index++) {
+            final long length = oldestFirst[index].length();
+            if (!oldestFirst[index].equals(keep) && oldestFirst[index].delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private static String kindsHash() {
+        final StringBuilder names = new StringBuilder();
+        for (final TokenKind kind : TokenKind.values()) {
+            names.append(kind.name()).append(' ');
+        }
+        return Integer.toHexString(names.toString().hashCode());
+    }
+
+    private File fileFor(final String source) {
+        return new File(directory, hash(source) + SUFFIX);
+    }
+
+    private static String hash(final String source) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        final byte[] bytes = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // growable byte array with varint writers
+    private static class Encoder {
+        private byte[] bytes = new byte[256];
+        private int size = 0;
+
+        void writeByte(final int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeUnsigned(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeSigned(final int value) {
+            writeUnsigned((value << 1) ^ (value >> 31));
+        }
+
+        void writeText(final CharSequence text) {
+            final byte[] encoded = text.toString().getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(encoded.length);
+            for (final byte b : encoded) {
+                writeByte(b);
+            }
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    static byte[] encode(final TokenBuffer tokens) {
+        final Encoder encoder = new Encoder();
+        for (final byte b : MAGIC) {
+            encoder.writeByte(b);
+        }
+        encoder.writeText(VERSION);
+
+        // names get file-local indexes in order of first use
+        final Map<Integer, Integer> nameIndexes = new HashMap<Integer, Integer>();
+        final List<Integer> symbols = new ArrayList<Integer>();
+        for (int index = 0; index < tokens.size(); index++) {
+            if (tokens.kind(index).isName() && !nameIndexes.containsKey(tokens.symbol(index))) {
+                nameIndexes.put(tokens.symbol(index), symbols.size());
+                symbols.add(tokens.symbol(index));
+            }
+        }
+        encoder.writeUnsigned(symbols.size());
+        for (final int symbol : symbols) {
+            encoder.writeText(SymbolTable.global().name(symbol));
+        }
+
+        encoder.writeUnsigned(tokens.size());
+        int previousEnd = 0;
+        for (int index = 0; index < tokens.size(); index++) {
+            final TokenKind kind = tokens.kind(index);
+            encoder.writeUnsigned(kind.ordinal());
+            encoder.writeSigned(tokens.start(index) - previousEnd);
+            encoder.writeUnsigned(tokens.length(index));
+            if (kind.isName()) {
+                encoder.writeUnsigned(nameIndexes.get(tokens.symbol(index)));
+            } else if (kind == TokenKind.NUMBER) {
+                encoder.writeSigned(tokens.number(index));
+            } else if (kind == TokenKind.STRING_VALUE) {
+                encoder.writeText(tokens.string(index));
+            }
+            previousEnd = tokens.start(index) + tokens.length(index);
+        }
+        return encoder.toArray();
+    }
+
+    private static int readUnsigned(final ByteBuffer bytes) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = bytes.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IllegalArgumentException("varint too long");
+            }
+        }
+    }
+
+    private static int readSigned(final ByteBuffer bytes) {
+        final int value = readUnsigned(bytes);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static String readText(final ByteBuffer bytes) {
+        final byte[] encoded = new byte[readUnsigned(bytes)];
+        bytes.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    // tokens stored in bytes, or null if they are not a valid cache file
+    static TokenBuffer decode(final ByteBuffer bytes) {
+        try {
+            for (final byte b : MAGIC) {
+                if (bytes.get() != b) {
+                    return null;
+                }
+            }
+            if (!readText(bytes).equals(VERSION)) {
+                return null;
+            }
+
+            // every name and token takes at least a byte, so a count past
+            // what is left of the file is corrupt, and must not be allocated
+            final int names = readUnsigned(bytes);
+            if (names > bytes.remaining()) {
+                return null;
+            }
+            final int[] symbols = new int[names];
+            for (int index = 0; index < symbols.length; index++) {
+                symbols[index] = SymbolTable.global().intern(readText(bytes));
+            }
+
+            final int count = readUnsigned(bytes);
+            final TokenBuffer tokens = new TokenBuffer(Math.min(count, bytes.remaining()));
+            int previousEnd = 0;
+            for (int index = 0; index < count; index++) {
+                final TokenKind kind = TokenKind.fromOrdinal(readUnsigned(bytes));
+                final int start = previousEnd + readSigned(bytes);
+                final int length = readUnsigned(bytes);
+                if (kind.isName()) {
+                    tokens.add(kind, start, length, symbols[readUnsigned(bytes)]);
+                } else if (kind == TokenKind.NUMBER) {
+                    tokens.add(kind, start, length, readSigned(bytes));
+                } else if (kind == TokenKind.STRING_VALUE) {
+                    tokens.addString(start, length, readText(bytes));
+                } else {
+                    tokens.add(kind, start, length, 0);
+                }
+                previousEnd = start + length;
+            }
+            return bytes.hasRemaining() ? null : tokens;
+        } catch (final BufferUnderflowException e) {
+            return null;
+        } catch (final IllegalArgumentException e) {
+            return null;
+        } catch (final IndexOutOfBoundsException e) {
+            return null;
+        } catch (final NegativeArraySizeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jamascript.lexer;
+
+// One constant per token class, so tokens can be stored and compared
+// as small integers instead of objects. Kinds without a payload also hold
+// the one canonical token instance for that kind.
+public enum TokenKind {
+    // tokens carrying a name, number or string
+    VARIABLE(null),
+    CLASS_NAME(null),
+    METHOD_NAME(null),
+    NUMBER(null),
+    STRING_VALUE(null),
+
+    // keywords
+    TRUE(new TrueToken()),
+    FALSE(new FalseToken()),
+    IF(new IfToken()),
+    ELSE(new ElseToken()),
+    BOOLEAN(new BooleanToken()),
+    EXTENDS(new ExtendsToken()),
+    INT(new IntToken()),
+    NEW(new NewToken()),
+    PRINTLN(new PrintlnToken()),
+    RETURN(new ReturnToken()),
+    STRING(new StringToken()),
+    WHILE(new WhileToken()),
+    CLASS(new ClassToken()),
+    CONSTRUCTOR(new ConstructorToken()),
+    SUPER(new SuperToken()),
+
+    // symbols
+    LEFT_PARENTHESIS(new LeftParenthesisToken()),
+    RIGHT_PARENTHESIS(new RightParenthesisToken()),
+    LEFT_CURLY_BRACKET(new LeftCurlyBracketToken()),
+    RIGHT_CURLY_BRACKET(new RightCurlyBracketToken()),
+    LEFT_SQUARED_BRACKET(new LeftSquaredBracketToken()),
+    RIGHT_SQUARED_BRACKET(new RightSquaredBracketToken()),
+    DIVIDE(new DivideToken()),
+    COMMA(new CommaToken()),
+    DOT(new DotToken()),
+    EQUAL_EQUAL(new EqualEqualToken()),
+    EQUAL(new EqualToken()),
+    GREATER_THAN_EQUAL(new GreaterThanEqualToken()),
+    GREATER_THAN(new GreaterThanToken()),
+    LESS_THAN_EQUAL(new LessThanEqualToken()),
+    LESS_THAN(new LessThanToken()),
+    MINUS(new MinusToken()),
+    MULTIPLY(new MultiplyToken()),
+    NOT(new NotToken()),
+    PLUS(new PlusToken()),
+    QUOTATION_MARK(new QuotationMarkToken()),
+    SEMICOLON(new SemicolonToken()),
+
+    // only produced when recovering from lexical errors
+    ERROR(new ErrorToken());
+
+    private static final TokenKind[] VALUES = values();
+
+    private final Token instance;
+
+    private TokenKind(final Token instance) {
+        this.instance = instance;
+    }
+
+    public static TokenKind fromOrdinal(final int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    // true for the kinds listed before the keywords
+    public boolean hasPayload() {
+        return instance == null;
+    }
+
+    // true for kinds whose payload is a SymbolTable id
+    public boolean isName() {
+        return this == VARIABLE || this == CLASS_NAME || this == METHOD_NAME;
+    }
+
+    // the shared token of a kind without a payload
+    public Token token() {
+        if (instance == null) {
+            throw new IllegalStateException(this + " tokens carry a payload");
+        }
+        return instance;
+    }
+
+    // Token of this kind: a new one for kinds carrying a name, string or
+    // number, the canonical instance for everything else. payload is the
+    // symbol id of names and the value of numbers.
+    public Token makeToken(final CharSequence text, final int payload) {
+        switch (this) {
+            case VARIABLE:
+                return new VariableToken(payload);
+            case CLASS_NAME:
+                return new ClassNameToken(payload);
+            case METHOD_NAME:
+                return new MethodNameToken(payload);
+            case NUMBER:
+                return new NumberToken(payload);
+            case STRING_VALUE:
+                return new StringValToken(text);
+            default:
+                return instance;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.jamascript.lexer;
+
+// Tokens read front to back through a window. peek(k) looks k tokens
+// past the current one without consuming anything, and advance() drops
+// the current token, after which it can no longer be looked at.
+// Implementations only hold the tokens between the current one and the
+// furthest one peeked at.
+public interface TokenSource {
+    // kind of the token k places after the current one, or null past the end
+    public TokenKind peek(int k) throws TokenizerException;
+
+    // packed span of that token
+    public long peekSpan(int k) throws TokenizerException;
+
+    // symbol id for names, value for numbers; unspecified for other kinds
+    public int peekPayload(int k) throws TokenizerException;
+
+    // value of a string literal token
+    public CharSequence peekString(int k) throws TokenizerException;
+
+    // drops the current token; peek(1) becomes peek(0)
+    public void advance() throws TokenizerException;
+
+    // index of the current token in the whole stream
+    public int position();
+}
@@ -1,249 +1,1147 @@
 package com.jamascript.lexer;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+// Single-pass scanner. Every character is classified once through a
+// character-class table and drives a DFA transition table; the state the
+// DFA stops in decides which token gets emitted.
 public class Tokenizer {
-    private final String input;
+    // character classes
+    private static final int C_OTHER = 0;
+    private static final int C_WHITESPACE = 1;
+    private static final int C_LETTER = 2;
+    private static final int C_DIGIT = 3;
+    private static final int C_LEFT_PAREN = 4;
+    private static final int C_RIGHT_PAREN = 5;
+    private static final int C_LEFT_CURLY = 6;
+    private static final int C_RIGHT_CURLY = 7;
+    private static final int C_LEFT_SQUARE = 8;
+    private static final int C_RIGHT_SQUARE = 9;
+    private static final int C_SLASH = 10;
+    private static final int C_COMMA = 11;
+    private static final int C_DOT = 12;
+    private static final int C_EQUAL = 13;
+    private static final int C_GREATER = 14;
+    private static final int C_LESS = 15;
+    private static final int C_MINUS = 16;
+    private static final int C_STAR = 17;
+    private static final int C_BANG = 18;
+    private static final int C_PLUS = 19;
+    private static final int C_QUOTE = 20;
+    private static final int C_SEMICOLON = 21;
+    static final int NUM_CLASSES = 22;
+
+    // DFA states; every state but S_START is accepting
+    static final int S_STOP = -1;
+    static final int S_START = 0;
+    static final int S_IDENTIFIER = 1;
+    static final int S_NUMBER = 2;
+    private static final int S_LEFT_PAREN = 3;
+    private static final int S_RIGHT_PAREN = 4;
+    private static final int S_LEFT_CURLY = 5;
+    private static final int S_RIGHT_CURLY = 6;
+    private static final int S_LEFT_SQUARE = 7;
+    private static final int S_RIGHT_SQUARE = 8;
+    private static final int S_DIVIDE = 9;
+    private static final int S_COMMA = 10;
+    private static final int S_DOT = 11;
+    private static final int S_EQUAL = 12;
+    private static final int S_EQUAL_EQUAL = 13;
+    private static final int S_GREATER = 14;
+    private static final int S_GREATER_EQUAL = 15;
+    private static final int S_LESS = 16;
+    private static final int S_LESS_EQUAL = 17;
+    private static final int S_MINUS = 18;
+    private static final int S_MULTIPLY = 19;
+    private static final int S_NOT = 20;
+    private static final int S_PLUS = 21;
+    static final int S_QUOTE = 22;
+    private static final int S_SEMICOLON = 23;
+    // the DFA only consumes the opening `//` or `/*`; the rest of a
+    // comment is skipped by hand
+    static final int S_LINE_COMMENT = 24;
+    static final int S_BLOCK_COMMENT = 25;
+    private static final int NUM_STATES = 26;
+
+    static final byte[] ASCII_CLASSES = new byte[128];
+    static final byte[] TRANSITIONS = new byte[NUM_STATES * NUM_CLASSES];
+
+    // token emitted by each accepting state; names and numbers are
+    // handled separately
+    static final TokenKind[] STATE_KINDS = new TokenKind[NUM_STATES];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            ASCII_CLASSES[c] = (byte) classifySlow(c);
+        }
+        ASCII_CLASSES['('] = C_LEFT_PAREN;
+        ASCII_CLASSES[')'] = C_RIGHT_PAREN;
+        ASCII_CLASSES['{'] = C_LEFT_CURLY;
+        ASCII_CLASSES['}'] = C_RIGHT_CURLY;
+        ASCII_CLASSES['['] = C_LEFT_SQUARE;
+        ASCII_CLASSES[']'] = C_RIGHT_SQUARE;
+        ASCII_CLASSES['/'] = C_SLASH;
+        ASCII_CLASSES[','] = C_COMMA;
+        ASCII_CLASSES['.'] = C_DOT;
+        ASCII_CLASSES['='] = C_EQUAL;
+        ASCII_CLASSES['>'] = C_GREATER;
+        ASCII_CLASSES['<'] = C_LESS;
+        ASCII_CLASSES['-'] = C_MINUS;
+        ASCII_CLASSES['*'] = C_STAR;
+        ASCII_CLASSES['!'] = C_BANG;
+        ASCII_CLASSES['+'] = C_PLUS;
+        ASCII_CLASSES['"'] = C_QUOTE;
+        ASCII_CLASSES[';'] = C_SEMICOLON;
+
+        for (int index = 0; index < TRANSITIONS.length; index++) {
+            TRANSITIONS[index] = S_STOP;
+        }
+
+        // whitespace between tokens loops on the start state
+        transition(S_START, C_WHITESPACE, S_START);
+        transition(S_START, C_LETTER, S_IDENTIFIER);
+        transition(S_START, C_DIGIT, S_NUMBER);
+        transition(S_START, C_LEFT_PAREN, S_LEFT_PAREN);
+        transition(S_START, C_RIGHT_PAREN, S_RIGHT_PAREN);
+        transition(S_START, C_LEFT_CURLY, S_LEFT_CURLY);
+        transition(S_START, C_RIGHT_CURLY, S_RIGHT_CURLY);
+        transition(S_START, C_LEFT_SQUARE, S_LEFT_SQUARE);
+        transition(S_START, C_RIGHT_SQUARE, S_RIGHT_SQUARE);
+        transition(S_START, C_SLASH, S_DIVIDE);
+        transition(S_START, C_COMMA, S_COMMA);
+        transition(S_START, C_DOT, S_DOT);
+        transition(S_START, C_EQUAL, S_EQUAL);
+        transition(S_START, C_GREATER, S_GREATER);
+        transition(S_START, C_LESS, S_LESS);
+        transition(S_START, C_MINUS, S_MINUS);
+        transition(S_START, C_STAR, S_MULTIPLY);
+        transition(S_START, C_BANG, S_NOT);
+        transition(S_START, C_PLUS, S_PLUS);
+        transition(S_START, C_QUOTE, S_QUOTE);
+        transition(S_START, C_SEMICOLON, S_SEMICOLON);
+
+        transition(S_IDENTIFIER, C_LETTER, S_IDENTIFIER);
+        transition(S_IDENTIFIER, C_DIGIT, S_IDENTIFIER);
+        transition(S_NUMBER, C_DIGIT, S_NUMBER);
+
+        // two character operators
+        transition(S_EQUAL, C_EQUAL, S_EQUAL_EQUAL);
+        transition(S_GREATER, C_EQUAL, S_GREATER_EQUAL);
+        transition(S_LESS, C_EQUAL, S_LESS_EQUAL);
+
+        transition(S_DIVIDE, C_SLASH, S_LINE_COMMENT);
+        transition(S_DIVIDE, C_STAR, S_BLOCK_COMMENT);
+
+        STATE_KINDS[S_LEFT_PAREN] = TokenKind.LEFT_PARENTHESIS;
+        STATE_KINDS[S_RIGHT_PAREN] = TokenKind.RIGHT_PARENTHESIS;
+        STATE_KINDS[S_LEFT_CURLY] = TokenKind.LEFT_CURLY_BRACKET;
+        STATE_KINDS[S_RIGHT_CURLY] = TokenKind.RIGHT_CURLY_BRACKET;
+        STATE_KINDS[S_LEFT_SQUARE] = TokenKind.LEFT_SQUARED_BRACKET;
+        STATE_KINDS[S_RIGHT_SQUARE] = TokenKind.RIGHT_SQUARED_BRACKET;
+        STATE_KINDS[S_DIVIDE] = TokenKind.DIVIDE;
+        STATE_KINDS[S_COMMA] = TokenKind.COMMA;
+        STATE_KINDS[S_DOT] = TokenKind.DOT;
+        STATE_KINDS[S_EQUAL] = TokenKind.EQUAL;
+        STATE_KINDS[S_EQUAL_EQUAL] = TokenKind.EQUAL_EQUAL;
+        STATE_KINDS[S_GREATER] = TokenKind.GREATER_THAN;
+        STATE_KINDS[S_GREATER_EQUAL] = TokenKind.GREATER_THAN_EQUAL;
+        STATE_KINDS[S_LESS] = TokenKind.LESS_THAN;
+        STATE_KINDS[S_LESS_EQUAL] = TokenKind.LESS_THAN_EQUAL;
+        STATE_KINDS[S_MINUS] = TokenKind.MINUS;
+        STATE_KINDS[S_MULTIPLY] = TokenKind.MULTIPLY;
+        STATE_KINDS[S_NOT] = TokenKind.NOT;
+        STATE_KINDS[S_PLUS] = TokenKind.PLUS;
+        // the DFA only consumes the opening quote; the body is scanned by hand
+        STATE_KINDS[S_QUOTE] = TokenKind.STRING_VALUE;
+        STATE_KINDS[S_SEMICOLON] = TokenKind.SEMICOLON;
+    }
+
+    private static void transition(final int from, final int charClass, final int to) {
+        TRANSITIONS[from * NUM_CLASSES + charClass] = (byte) to;
+    }
+
+    // Class of any code point, straight from Character. Only used to fill
+    // the tables; the values double as the 2-bit entries of CharClasses.
+    static int classifySlow(final int c) {
+        if (Character.isWhitespace(c)) {
+            return C_WHITESPACE;
+        } else if (Character.isLetter(c)) {
+            return C_LETTER;
+        } else if (Character.isDigit(c)) {
+            return C_DIGIT;
+        } else {
+            return C_OTHER;
+        }
+    }
+
+    // class of a code point the ASCII table does not cover
+    static int classifyNonTable(final int c) {
+        return (c <= Character.MAX_VALUE) ? CharClasses.classify((char) c) : classifySlow(c);
+    }
+
+    private static int classify(final char c) {
+        return (c < 128) ? ASCII_CLASSES[c] : CharClasses.classify(c);
+    }
+
+    // Class of the char at position, or of the code point if a surrogate
+    // pair starts there; such a pair is only ever consumed whole
+    private int classifyAt(final int position) {
+        final char c = buffer[position];
+        if (c < 128) {
+            return ASCII_CLASSES[c];
+        } else if (Character.isHighSurrogate(c) && position + 1 < limit &&
+                   Character.isLowSurrogate(buffer[position + 1])) {
+            return classifySlow(Character.toCodePoint(c, buffer[position + 1]));
+        } else {
+            return CharClasses.classify(c);
+        }
+    }
+
+    // chars taken by the code point at position
+    private int widthAt(final int position) {
+        return (Character.isHighSurrogate(buffer[position]) && position + 1 < limit &&
+                Character.isLowSurrogate(buffer[position + 1])) ? 2 : 1;
+    }
+
+    // Version of what the lexer makes of its input. Bump it with any change
+    // that lexes some input differently, so tokens stored by an older
+    // lexer (see TokenCache) are not used.
+    public static final int VERSION = 1;
+
+    // window size for sources read incrementally
+    public static final int DEFAULT_WINDOW_SIZE = 8192;
+
+    // inputs are only split into chunks of at least this many chars
+    public static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    // null when the whole input is already in buffer
+    private final Reader reader;
+
+    // buffer[0, limit) holds the characters read so far that are still
+    // needed; buffer[0] sits at absolute offset bufferBase in the input
+    private char[] buffer;
+    private int limit;
+    private int bufferBase;
+    private boolean endOfInput;
+
+    // index in buffer of the next character to scan
     private int offset;
 
+    // start of the lexeme the last call to scan() stopped on
+    private int tokenStart;
+
+    // value of the last number scanned
+    private int tokenNumber;
+
+    // value of the last string literal scanned
+    private CharSequence tokenString;
+
+    // what was wrong with the last lexeme, or null
+    private String error;
+
+    // when set, errors become ERROR tokens and diagnostics instead of
+    // exceptions
+    private boolean recovering;
+    private List<Diagnostic> diagnostics;
+
     public Tokenizer(final String input) {
-        this.input = input;
+        reader = null;
+        buffer = input.toCharArray();
+        limit = buffer.length;
+        bufferBase = 0;
+        endOfInput = true;
+        offset = 0;
+    }
+
+    // Lexes only chars[start, end); offsets stay relative to chars[0]
+    private Tokenizer(final char[] chars, final int start, final int end) {
+        reader = null;
+        buffer = chars;
+        limit = end;
+        bufferBase = 0;
+        endOfInput = true;
+        offset = start;
+    }
+
+    // Pulls characters from reader as tokens are requested, holding at most
+    // windowSize of them (or one lexeme, if a single lexeme is longer)
+    public Tokenizer(final Reader reader, final int windowSize) {
+        this.reader = reader;
+        buffer = new char[Math.max(windowSize, 16)];
+        limit = 0;
+        bufferBase = 0;
+        endOfInput = false;
         offset = 0;
     }
 
-    // Checks whether the offset is less than the string
-    // Checks also whether the current character that I'm at in the string is
-    // whitespace at the offset
-    public void skipWhiteSpace() {
-        while ((offset < input.length()) && Character.isWhitespace(input.charAt(offset))) {
-            offset++;
+    public Tokenizer(final Reader reader) {
+        this(reader, DEFAULT_WINDOW_SIZE);
+    }
+
+    // Decodes UTF-8 from the channel as it is lexed
+    public Tokenizer(final ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), DEFAULT_WINDOW_SIZE),
+             DEFAULT_WINDOW_SIZE);
+    }
+
+    // Drops everything before keepFrom and reads more input behind what is
+    // left. Returns how far the kept characters moved towards the front.
+    private int fill(final int keepFrom) throws TokenizerException {
+        final int kept = limit - keepFrom;
+        if (keepFrom == 0 && limit == buffer.length) {
+            // one lexeme fills the whole window
+            final char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        } else {
+            System.arraycopy(buffer, keepFrom, buffer, 0, kept);
+        }
+        bufferBase += keepFrom;
+        limit = kept;
+
+        try {
+            final int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                limit += read;
+            }
+        } catch (final IOException e) {
+            throw new TokenizerException("could not read input: " + e.getMessage(), e);
         }
+        return keepFrom;
     }
 
-    // returns null if it wasn't an integer token
-    public NumberToken tryTokenizeNumber() {
-        skipWhiteSpace();
+    // Runs the DFA from the current offset until it has no transition,
+    // leaving offset just past the lexeme. Returns the state it stopped in;
+    // S_START means it either hit the end of the input or an unknown character.
+    private int scan() throws TokenizerException {
+        int position = offset;
+        int start = position;
+        int state = S_START;
 
-        // 12345
-        String number = "";
+        while (true) {
+            if (position == limit) {
+                if (endOfInput) {
+                    break;
+                }
+                final int moved = fill(start);
+                position -= moved;
+                start -= moved;
+                continue;
+            }
+            final char c = buffer[position];
+            final int charClass;
+            int width = 1;
+            if (c < 128) {
+                charClass = ASCII_CLASSES[c];
+            } else if (!Character.isHighSurrogate(c)) {
+                charClass = CharClasses.classify(c);
+            } else if (position + 1 == limit && !endOfInput) {
+                // the other half of the pair has not been read yet
+                final int moved = fill(start);
+                position -= moved;
+                start -= moved;
+                continue;
+            } else {
+                charClass = classifyAt(position);
+                width = widthAt(position);
+            }
+            final int next = TRANSITIONS[state * NUM_CLASSES + charClass];
+            if (next == S_STOP) {
+                break;
+            }
+            position += width;
+            if (next >= S_LINE_COMMENT) {
+                // a comment separates tokens like whitespace does
+                offset = position;
+                tokenStart = start;
+                if (next == S_LINE_COMMENT ? !skipLineComment() : !skipBlockComment()) {
+                    return S_BLOCK_COMMENT;
+                }
+                position = offset;
+                start = position;
+                state = S_START;
+                continue;
+            }
+            if (next == S_START) {
+                start = position;
+            }
+            state = next;
+        }
 
-        while (offset < input.length() &&
-                Character.isDigit(input.charAt(offset))) {
-            number += input.charAt(offset);
-            offset++;
+        offset = position;
+        tokenStart = start;
+        return state;
+    }
+
+    // Moves offset to the end of the line the comment is on. Nothing of
+    // the comment is kept in the window. Always returns true.
+    private boolean skipLineComment() throws TokenizerException {
+        while (true) {
+            final int end = lineEnd(buffer, offset, limit);
+            offset = end;
+            if (end < limit || endOfInput) {
+                return true;
+            }
+            tokenStart -= fill(offset);
+            offset = 0;
         }
+    }
 
-        if (number.length() > 0) {
-            // convert string to an integer
-            return new NumberToken(number);
-        } else {
-            return null;
+    // Moves offset past the `*/` closing the comment. Nothing of the
+    // comment is kept in the window, so for an unterminated comment
+    // tokenStart, which stays on the `/*`, may end up before the window;
+    // getTokenSpan still gives its absolute position. Returns false,
+    // with error set, if the input ends first.
+    private boolean skipBlockComment() throws TokenizerException {
+        while (true) {
+            final int star = indexOfStar(buffer, offset, limit);
+            if (star + 1 < limit) {
+                if (buffer[star + 1] == '/') {
+                    offset = star + 2;
+                    return true;
+                }
+                offset = star + 1;
+                continue;
+            }
+            if (endOfInput) {
+                offset = limit;
+                error = "unterminated comment";
+                return false;
+            }
+            // keep a trailing `*`, it may be the start of `*/`
+            offset = star;
+            final int moved = fill(star);
+            tokenStart -= moved;
+            offset -= moved;
+        }
+    }
+
+    // index of the first line break in chars[from, to), or to
+    static int lineEnd(final char[] chars, int from, final int to) {
+        while (from < to && chars[from] != '\n' && chars[from] != '\r') {
+            from++;
         }
+        return from;
     }
 
-    public Token tryTokenizeClassName() {
-        skipWhiteSpace();
-        String name = "";
+    // index of the first `*` in chars[from, to), or to
+    static int indexOfStar(final char[] chars, int from, final int to) {
+        while (from < to && chars[from] != '*') {
+            from++;
+        }
+        return from;
+    }
 
-        // if the offset is less than length of string
-        // and if the current character in the string is a letter
-        if ((offset < input.length()) && Character.isLetter(input.charAt(offset))) {
-            name += input.charAt(offset);
-            offset++;
+    private boolean atEnd() {
+        return offset == limit && endOfInput;
+    }
 
-            // add to name until you hit whitespace
-            while ((offset < input.length()) && Character.isLetterOrDigit(input.charAt(offset))) {
-                name += input.charAt(offset);
-                offset++;
+    // Value of the digits in [start, end), read straight from the buffer.
+    // Sets error as soon as the literal no longer fits in an Int.
+    private int scanNumber(final int start, final int end) {
+        long value = 0;
+        for (int position = start; position < end; position++) {
+            final char c = buffer[position];
+            final int digit;
+            if (c < 128) {
+                digit = c - '0';
+            } else {
+                final int codePoint = Character.codePointAt(buffer, position, end);
+                digit = Character.digit(codePoint, 10);
+                position += Character.charCount(codePoint) - 1;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                error = "integer literal out of range: " + new String(buffer, start, end - start);
+                return 0;
             }
-            return new ClassNameToken(name);
-        } else {
-            return null;
         }
+        return (int) value;
     }
 
-    public Token tryTokenizeMethodName() {
-        skipWhiteSpace();
-        String name = "";
+    // Scans the rest of a string literal whose opening quote ends at
+    // offset. Without escapes the value is a view of the buffer; a
+    // streamed input moves its buffer around, so there it is copied.
+    private void scanString() throws TokenizerException {
+        int position = offset;
+        boolean escapes = false;
+        boolean afterBackslash = false;
 
-        // if the offset is less than length of string
-        // and if the current character in the string is a letter
-        if ((offset < input.length()) && Character.isLetter(input.charAt(offset))) {
-            name += input.charAt(offset);
-            offset++;
+        while (true) {
+            if (position == limit) {
+                if (endOfInput) {
+                    offset = position;
+                    error = "unterminated string literal";
+                    return;
+                }
+                final int moved = fill(tokenStart);
+                position -= moved;
+                tokenStart -= moved;
+                continue;
+            }
+            final char c = buffer[position++];
+            if (afterBackslash) {
+                afterBackslash = false;
+            } else if (c == '\\') {
+                escapes = true;
+                afterBackslash = true;
+            } else if (c == '"') {
+                break;
+            }
+        }
 
-            // add to name until you hit whitespace
-            while ((offset < input.length()) && Character.isLetterOrDigit(input.charAt(offset))) {
-                name += input.charAt(offset);
-                offset++;
+        offset = position;
+        final int valueStart = tokenStart + 1;
+        final int valueLength = position - 1 - valueStart;
+        if (escapes) {
+            tokenString = unescape(buffer, valueStart, valueLength);
+            if (tokenString == null) {
+                error = "invalid escape in string literal: " + new String(buffer, tokenStart, offset - tokenStart);
             }
-            return new MethodNameToken(name);
+        } else if (reader == null) {
+            tokenString = new SourceSlice(buffer, valueStart, valueLength);
         } else {
-            return null;
+            tokenString = new String(buffer, valueStart, valueLength);
         }
     }
 
-    public Token tryTokenizeVariableOrKeyword() {
-        skipWhiteSpace();
-        String name = "";
-
-        // if the offset is less than length of string
-        // and if the current character in the string is a letter
-        if ((offset < input.length()) && Character.isLetter(input.charAt(offset))) {
-            name += input.charAt(offset);
-            offset++;
-
-            // add to name until you hit whitespace
-            while ((offset < input.length()) && Character.isLetterOrDigit(input.charAt(offset))) {
-                name += input.charAt(offset);
-                offset++;
-            }
-
-            if (name.equals("true")) {
-                return new TrueToken();
-            } else if (name.equals("false")) {
-                return new FalseToken();
-            } else if (name.equals("if")) {
-                return new IfToken();
-            } else if (name.equals("else")) {
-                return new ElseToken();
-            } else if (name.equals("Boolean")) {
-                return new BooleanToken();
-            } else if (name.equals("extends")) {
-                return new ExtendsToken();
-            } else if (name.equals("Int")) {
-                return new IntToken();
-            } else if (name.equals("new")) {
-                return new NewToken();
-            } else if (name.equals("println")) {
-                return new PrintlnToken();
-            } else if (name.equals("return")) {
-                return new ReturnToken();
-            } else if (name.equals("String")) {
-                return new StringToken();
-            } else if (name.equals("while")) {
-                return new WhileToken();
-            } else if (name.equals("class")) {
-                return new ClassToken();
-            } else if (name.equals("constructor")) {
-                return new ConstructorToken();
-            } else if (name.equals("super")) {
-                return new SuperToken();
-            } else {
-                return new VariableToken(name);
+    // Value of a literal body holding backslash escapes, or null if one
+    // of them is not valid
+    static String unescape(final char[] chars, final int start, final int length) {
+        final StringBuilder value = new StringBuilder(length);
+        for (int index = start; index < start + length; index++) {
+            final char c = chars[index];
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            index++;
+            switch (chars[index]) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case '"':
+                    value.append('"');
+                    break;
+                case '\\':
+                    value.append('\\');
+                    break;
+                default:
+                    return null;
             }
+        }
+        return value.toString();
+    }
+
+    // the caller has already checked the lengths match
+    private static boolean lexemeIs(final char[] chars, final int start, final String keyword) {
+        for (int index = 1; index < keyword.length(); index++) {
+            if (chars[start + index] != keyword.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Keyword for the name in chars[start, start + length), or null for a
+    // plain name. The length and first character pick at most two
+    // candidates, so no String is built to recognize a keyword.
+    static TokenKind keyword(final char[] chars, final int start, final int length) {
+        final char first = chars[start];
+        switch (length) {
+            case 2:
+                if (first == 'i' && lexemeIs(chars, start, "if")) {
+                    return TokenKind.IF;
+                }
+                break;
+            case 3:
+                if (first == 'I' && lexemeIs(chars, start, "Int")) {
+                    return TokenKind.INT;
+                } else if (first == 'n' && lexemeIs(chars, start, "new")) {
+                    return TokenKind.NEW;
+                }
+                break;
+            case 4:
+                if (first == 't' && lexemeIs(chars, start, "true")) {
+                    return TokenKind.TRUE;
+                } else if (first == 'e' && lexemeIs(chars, start, "else")) {
+                    return TokenKind.ELSE;
+                }
+                break;
+            case 5:
+                if (first == 'f' && lexemeIs(chars, start, "false")) {
+                    return TokenKind.FALSE;
+                } else if (first == 'w' && lexemeIs(chars, start, "while")) {
+                    return TokenKind.WHILE;
+                } else if (first == 'c' && lexemeIs(chars, start, "class")) {
+                    return TokenKind.CLASS;
+                } else if (first == 's' && lexemeIs(chars, start, "super")) {
+                    return TokenKind.SUPER;
+                }
+                break;
+            case 6:
+                if (first == 'r' && lexemeIs(chars, start, "return")) {
+                    return TokenKind.RETURN;
+                } else if (first == 'S' && lexemeIs(chars, start, "String")) {
+                    return TokenKind.STRING;
+                }
+                break;
+            case 7:
+                if (first == 'B' && lexemeIs(chars, start, "Boolean")) {
+                    return TokenKind.BOOLEAN;
+                } else if (first == 'e' && lexemeIs(chars, start, "extends")) {
+                    return TokenKind.EXTENDS;
+                } else if (first == 'p' && lexemeIs(chars, start, "println")) {
+                    return TokenKind.PRINTLN;
+                }
+                break;
+            case 11:
+                if (first == 'c' && lexemeIs(chars, start, "constructor")) {
+                    return TokenKind.CONSTRUCTOR;
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+
+    // Scans the next token and returns its kind, or null at the end of the
+    // input. The lexeme is [tokenStart, offset); numbers leave their value
+    // in tokenNumber.
+    private TokenKind scanToken() throws TokenizerException {
+        final int state = scan();
+        if (state == S_START) {
+            if (atEnd()) {
+                return null;
+            }
+            if (!recovering) {
+                throw new TokenizerException("unexpected character: " +
+                        new String(buffer, offset, widthAt(offset)));
+            }
+            // one error for the whole run of characters that start no token
+            while (offset < limit && TRANSITIONS[S_START * NUM_CLASSES + classifyAt(offset)] == S_STOP) {
+                offset += widthAt(offset);
+            }
+            return recover("unexpected character: " + new String(buffer, tokenStart, offset - tokenStart));
+        } else if (state == S_BLOCK_COMMENT) {
+            return recover(error);
+        } else if (state == S_IDENTIFIER) {
+            final TokenKind keyword = keyword(buffer, tokenStart, offset - tokenStart);
+            return (keyword != null) ? keyword : TokenKind.VARIABLE;
+        } else if (state == S_NUMBER) {
+            tokenNumber = scanNumber(tokenStart, offset);
+            return (error == null) ? TokenKind.NUMBER : recover(error);
+        } else if (state == S_QUOTE) {
+            scanString();
+            return (error == null) ? TokenKind.STRING_VALUE : recover(error);
         } else {
-            return null;
+            return STATE_KINDS[state];
         }
     }
 
-    // returns null if it couldn't read in a symbol
-    public Token tryTokenizeSymbol() {
-        skipWhiteSpace();
-        Token retval = null;
-
-        if (input.startsWith("(", offset)) {
-            offset += 1;
-            retval = new LeftParenthesisToken();
-        } else if (input.startsWith(")", offset)) {
-            offset += 1;
-            retval = new RightParenthesisToken();
-        } else if (input.startsWith("{", offset)) {
-            offset += 1;
-            retval = new LeftCurlyBracketToken();
-        } else if (input.startsWith("}", offset)) {
-            offset += 1;
-            retval = new RightCurlyBracketToken();
-        } else if (input.startsWith("[", offset)) {
-            offset += 1;
-            retval = new LeftSquaredBracketToken();
-        } else if (input.startsWith("]", offset)) {
-            offset += 1;
-            retval = new RightSquaredBracketToken();
-        } else if (input.startsWith("/", offset)) {
-            offset += 1;
-            retval = new DivideToken();
-        } else if (input.startsWith(",", offset)) {
-            offset += 1;
-            retval = new CommaToken();
-        } else if (input.startsWith(".", offset)) {
-            offset += 1;
-            retval = new DotToken();
-        } else if (input.startsWith("==", offset)) { // Order matters for this!!
-            offset += 2;
-            retval = new EqualEqualToken();
-        } else if (input.startsWith("=", offset)) {
-            offset += 1;
-            retval = new EqualToken();
-        } else if (input.startsWith(">=", offset)) {
-            offset += 2;
-            retval = new GreaterThanEqualToken();
-        } else if (input.startsWith(">", offset)) {
-            offset += 1;
-            retval = new GreaterThanToken();
-        } else if (input.startsWith("<=", offset)) {
-            offset += 2;
-            retval = new LessThanEqualToken();
-        } else if (input.startsWith("<", offset)) {
-            offset += 1;
-            retval = new LessThanToken();
-        } else if (input.startsWith("-", offset)) {
-            offset += 1;
-            retval = new MinusToken();
-        } else if (input.startsWith("*", offset)) {
-            offset += 1;
-            retval = new MultiplyToken();
-        } else if (input.startsWith("!", offset)) {
-            offset += 1;
-            retval = new NotToken();
-        } else if (input.startsWith("+", offset)) {
-            offset += 1;
-            retval = new PlusToken();
-        } else if (input.startsWith("\"", offset)) {
-            offset += 1;
-            retval = new QuotationMarkToken();
-        } else if (input.startsWith(";", offset)) {
-            offset += 1;
-            retval = new SemicolonToken();
-        }
-        return retval;
+    // Reports the current lexeme as bad: thrown normally, recorded when
+    // recovering, in which case no exception is ever built
+    private TokenKind recover(final String message) throws TokenizerException {
+        error = null;
+        if (!recovering) {
+            throw new TokenizerException(message);
+        }
+        if (diagnostics == null) {
+            diagnostics = new ArrayList<Diagnostic>();
+        }
+        diagnostics.add(new Diagnostic(getTokenSpan(), message));
+        return TokenKind.ERROR;
     }
 
     // If no more tokens left, returns NULL
     public Token tokenizeSingle() throws TokenizerException {
-        Token retval = null;
-        skipWhiteSpace();
+        final TokenKind kind = scanToken();
+        if (kind == null) {
+            return null;
+        } else if (kind == TokenKind.VARIABLE) {
+            return new VariableToken(symbol());
+        } else {
+            return kind.makeToken(tokenString, tokenNumber);
+        }
+    }
 
-        if (offset < input.length() &&
-                (retval = tryTokenizeVariableOrKeyword()) == null &&
-                (retval = tryTokenizeNumber()) == null &&
-                (retval = tryTokenizeSymbol()) == null) {
+    // Like tokenizeSingle, but the next lexeme has to be a name.
+    // Returns its symbol id, or -1 at the end of the input.
+    private int scanName() throws TokenizerException {
+        final int state = scan();
+        if (state == S_IDENTIFIER) {
+            return symbol();
+        } else if (state == S_START && atEnd()) {
+            return -1;
+        } else {
             throw new TokenizerException();
         }
-        return retval;
     }
 
     public Token tokenizeClassName() throws TokenizerException {
-        Token retval = null;
-        skipWhiteSpace();
+        final int symbol = scanName();
+        return (symbol < 0) ? null : new ClassNameToken(symbol);
+    }
 
-        if (offset < input.length() &&
-                (retval = tryTokenizeClassName()) == null) {
-            throw new TokenizerException();
+    public Token tokenizeMethodName() throws TokenizerException {
+        final int symbol = scanName();
+        return (symbol < 0) ? null : new MethodNameToken(symbol);
+    }
+
+    // Pull interface for streaming: scans the next token without building
+    // a Token object and returns its kind, or null at the end of the input.
+    // The getToken* methods describe the token just scanned.
+    public TokenKind nextKind() throws TokenizerException {
+        return scanToken();
+    }
+
+    // absolute offset of the last token in the input
+    public int getTokenStart() {
+        return bufferBase + tokenStart;
+    }
+
+    public int getTokenLength() {
+        return offset - tokenStart;
+    }
+
+    public long getTokenSpan() {
+        return Span.pack(bufferBase + tokenStart, offset - tokenStart);
+    }
+
+    public String getTokenName() {
+        return lexeme();
+    }
+
+    // SymbolTable id of the last name, interned straight from the buffer
+    public int getTokenSymbol() {
+        return symbol();
+    }
+
+    public int getTokenNumber() {
+        return tokenNumber;
+    }
+
+    public CharSequence getTokenString() {
+        return tokenString;
+    }
+
+    private String lexeme() {
+        return new String(buffer, tokenStart, offset - tokenStart);
+    }
+
+    private int symbol() {
+        return SymbolTable.global().intern(buffer, tokenStart, offset - tokenStart);
+    }
+
+    // Lexes the whole input into a packed buffer without building Token objects
+    public TokenBuffer tokenizeBuffer() throws TokenizerException {
+        final TokenBuffer tokens = new TokenBuffer(endOfInput ? (limit - offset) / 4 + 16 : TokenBuffer.DEFAULT_CAPACITY);
+        TokenKind kind = scanToken();
+
+        while (kind != null) {
+            addScanned(tokens, kind);
+            kind = scanToken();
         }
-        return retval;
+        return tokens;
     }
 
-    public Token tokenizeMethodName() throws TokenizerException {
-        Token retval = null;
-        skipWhiteSpace();
+    // Offsets where input can be cut so every piece lexes on its own:
+    // a top-level `class` keyword, outside any braces, string literal or
+    // comment, at least minChunkSize chars after the previous cut. The
+    // first entry is always 0.
+    public static int[] findChunkStarts(final String input, final int minChunkSize) {
+        return findChunkStarts(input.toCharArray(), minChunkSize);
+    }
 
-        if (offset < input.length() &&
-                (retval = tryTokenizeMethodName()) == null) {
-            throw new TokenizerException();
+    private static int[] findChunkStarts(final char[] chars, final int minChunkSize) {
+        final List<Integer> starts = new ArrayList<Integer>();
+        starts.add(0);
+        int depth = 0;
+        int position = 0;
+        int previous = 0;
+
+        while (position < chars.length) {
+            final char c = chars[position];
+            if (c == '"') {
+                // skip the literal; an unterminated one runs to the end
+                position++;
+                while (position < chars.length && chars[position] != '"') {
+                    position += (chars[position] == '\\') ? 2 : 1;
+                }
+            } else if (c == '/' && position + 1 < chars.length && chars[position + 1] == '/') {
+                position = lineEnd(chars, position + 2, chars.length);
+            } else if (c == '/' && position + 1 < chars.length && chars[position + 1] == '*') {
+                // an unterminated comment runs to the end
+                position = indexOfStar(chars, position + 2, chars.length);
+                while (position + 1 < chars.length && chars[position + 1] != '/') {
+                    position = indexOfStar(chars, position + 1, chars.length);
+                }
+                position++;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == 'c' && depth == 0 &&
+                       position - previous >= minChunkSize &&
+                       isClassKeyword(chars, position)) {
+                starts.add(position);
+                previous = position;
+            }
+            position++;
+        }
+
+        final int[] result = new int[starts.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = starts.get(index);
+        }
+        return result;
+    }
+
+    // half of a surrogate pair counts, as the pair may be a letter
+    private static boolean isNameChar(final char c) {
+        if (Character.isSurrogate(c)) {
+            return true;
+        }
+        final int charClass = classify(c);
+        return charClass == C_LETTER || charClass == C_DIGIT;
+    }
+
+    private static boolean isClassKeyword(final char[] chars, final int position) {
+        final int end = position + 5;
+        return (end <= chars.length &&
+                lexemeIs(chars, position, "class") &&
+                (position == 0 || !isNameChar(chars[position - 1])) &&
+                (end == chars.length || !isNameChar(chars[end])));
+    }
+
+    // lexes one chunk; failures are carried out of the pool unchecked
+    private static class ChunkTask extends RecursiveTask<TokenBuffer> {
+        private final char[] chars;
+        private final int start;
+        private final int end;
+
+        ChunkTask(final char[] chars, final int start, final int end) {
+            this.chars = chars;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected TokenBuffer compute() {
+            try {
+                return new Tokenizer(chars, start, end).tokenizeBuffer();
+            } catch (final TokenizerException e) {
+                throw new ChunkFailure(e);
+            }
+        }
+    }
+
+    private static class ChunkFailure extends RuntimeException {
+        ChunkFailure(final TokenizerException cause) {
+            super(cause);
+        }
+    }
+
+    // Same tokens as tokenizeBuffer, but the input is cut with
+    // findChunkStarts and the chunks are lexed concurrently on pool.
+    // Small inputs are lexed on the calling thread.
+    public static TokenBuffer tokenizeParallel(final String input, final ForkJoinPool pool)
+            throws TokenizerException {
+        final char[] chars = input.toCharArray();
+        final int[] starts = findChunkStarts(chars, MIN_CHUNK_SIZE);
+        if (starts.length == 1) {
+            return new Tokenizer(chars, 0, chars.length).tokenizeBuffer();
+        }
+
+        final List<ChunkTask> tasks = new ArrayList<ChunkTask>(starts.length);
+        for (int index = 0; index < starts.length; index++) {
+            final int end = (index + 1 < starts.length) ? starts[index + 1] : chars.length;
+            tasks.add(new ChunkTask(chars, starts[index], end));
+        }
+
+        boolean joined = false;
+        try {
+            for (final ChunkTask task : tasks) {
+                pool.execute(task);
+            }
+            final TokenBuffer tokens = new TokenBuffer(chars.length / 4 + 16);
+            for (final ChunkTask task : tasks) {
+                tokens.append(task.join());
+            }
+            joined = true;
+            return tokens;
+        } catch (final ChunkFailure e) {
+            // the pool may rethrow a copy that wraps the original
+            Throwable cause = e.getCause();
+            while (cause != null && !(cause instanceof TokenizerException)) {
+                cause = cause.getCause();
+            }
+            if (cause == null) {
+                throw e;
+            }
+            throw (TokenizerException) cause;
+        } finally {
+            if (!joined) {
+                // the other chunks are of no use once one has failed
+                for (final ChunkTask task : tasks) {
+                    task.cancel(true);
+                }
+            }
+        }
+    }
+
+    // Tokens of this tokenizer's input after replacing removedLength chars
+    // at editOffset with insertedText, given old, the tokens of the input
+    // before the edit. Tokens before the edit are kept; lexing restarts at
+    // the first token that touches it and stops as soon as a new token
+    // starts where an old token past the edit starts, shifted by the edit.
+    // From there the rest of old is copied with moved offsets. The
+    // tokenizer then holds the edited input, ready for the next edit; if
+    // lexing it fails, the tokenizer keeps the input old was lexed from.
+    //
+    // old has to come from tokenizeBuffer, or an earlier relex: names are
+    // lexed as variables. Tokens that went through the program-wide name
+    // rules are relexed with relexProgram.
+    public TokenBuffer relex(final TokenBuffer old,
+                             final int editOffset,
+                             final int removedLength,
+                             final String insertedText) throws TokenizerException {
+        return relex(old, editOffset, removedLength, insertedText, false);
+    }
+
+    // relex for tokens from tokenizeProgramBuffer, TokenCache or a
+    // classifying TokenSource, or an earlier relexProgram. An edit can
+    // change what the names next to it are, even names it does not touch
+    // (`new ` typed before `Dog`), so the token before the damage is
+    // classified again, and the old tokens are only reused from a point
+    // where the name rules see the same tokens before it as they did.
+    public TokenBuffer relexProgram(final TokenBuffer old,
+                                    final int editOffset,
+                                    final int removedLength,
+                                    final String insertedText) throws TokenizerException {
+        return relex(old, editOffset, removedLength, insertedText, true);
+    }
+
+    private TokenBuffer relex(final TokenBuffer old,
+                              final int editOffset,
+                              final int removedLength,
+                              final String insertedText,
+                              final boolean classifying) throws TokenizerException {
+        if (reader != null) {
+            throw new IllegalStateException("cannot relex a streamed input");
+        }
+        final int editEnd = editOffset + removedLength;
+        if (editOffset < 0 || editEnd > limit) {
+            throw new IllegalArgumentException("edit [" + editOffset + ", " + editEnd +
+                                               ") outside input of length " + limit);
+        }
+
+        final int shift = insertedText.length() - removedLength;
+        final char[] edited = new char[limit + shift];
+        System.arraycopy(buffer, 0, edited, 0, editOffset);
+        insertedText.getChars(0, insertedText.length(), edited, editOffset);
+        System.arraycopy(buffer, editEnd, edited, editOffset + insertedText.length(), limit - editEnd);
+
+        final char[] unedited = buffer;
+        final int uneditedLimit = limit;
+        final int uneditedOffset = offset;
+        buffer = edited;
+        limit = edited.length;
+        boolean relexed = false;
+        try {
+            final TokenBuffer tokens = relexEdited(old, editOffset, editEnd, shift, classifying);
+            relexed = true;
+            return tokens;
+        } finally {
+            if (!relexed) {
+                buffer = unedited;
+                limit = uneditedLimit;
+                offset = uneditedOffset;
+            }
+        }
+    }
+
+    // relex once buffer holds the edited input
+    private TokenBuffer relexEdited(final TokenBuffer old,
+                                    final int editOffset,
+                                    final int editEnd,
+                                    final int shift,
+                                    final boolean classifying) throws TokenizerException {
+        // first old token that ends at or after the edit
+        int damaged = 0;
+        while (damaged < old.size() && Span.end(old.span(damaged)) < editOffset) {
+            damaged++;
+        }
+        if (damaged < old.size() && old.start(damaged) < 0) {
+            throw new IllegalArgumentException("old tokens have no source positions");
+        }
+
+        final TokenBuffer tokens = new TokenBuffer(old.size() + 16);
+        tokens.appendRange(old, 0, damaged, 0);
+        if (classifying && damaged > 0) {
+            // the old token after it may have reclassified the last intact
+            // token; put back the kind it had before, for the first new
+            // token to revise
+            final int last = damaged - 1;
+            final TokenKind kind = old.kind(last);
+            tokens.setKind(last, nameKind(kind.isName() ? TokenKind.VARIABLE : kind,
+                                          (last > 0) ? old.kind(last - 1) : null));
+        }
+        // restart where the last intact token ends: only whitespace and
+        // comments come between there and the damage, and the edit may be
+        // inside a comment
+        offset = (damaged > 0) ? Span.end(old.span(damaged - 1)) : 0;
+
+        // first old token entirely after the edit, a candidate to resync on
+        int next = damaged;
+        while (next < old.size() && old.start(next) < editEnd) {
+            next++;
+        }
+
+        TokenKind kind = scanToken();
+        while (kind != null) {
+            while (next < old.size() && old.start(next) + shift < tokenStart) {
+                next++;
+            }
+            if (classifying) {
+                kind = classifyNext(tokens, kind);
+            }
+            if (next < old.size() && old.start(next) + shift == tokenStart &&
+                    (!classifying || sameContext(tokens, old, next))) {
+                // same text from here on, and the lexer is between tokens
+                tokens.appendRange(old, next, old.size(), shift);
+                return tokens;
+            }
+            addScanned(tokens, kind);
+            kind = scanToken();
+        }
+        return tokens;
+    }
+
+    // Whether the name rules see the same before the next new token as they
+    // saw before old token next. They only look one token back once the
+    // token before has been revised, so its kind is all that has to agree.
+    private static boolean sameContext(final TokenBuffer tokens, final TokenBuffer old, final int next) {
+        if (tokens.size() == 0 || next == 0) {
+            return tokens.size() == next;
+        }
+        return tokens.kind(tokens.size() - 1) == old.kind(next - 1);
+    }
+
+    private void addScanned(final TokenBuffer tokens, final TokenKind kind) {
+        final int start = getTokenStart();
+        final int length = getTokenLength();
+        if (kind.isName()) {
+            tokens.add(kind, start, length, symbol());
+        } else if (kind == TokenKind.STRING_VALUE) {
+            tokens.addString(start, length, tokenString);
+        } else {
+            tokens.add(kind, start, length, (kind == TokenKind.NUMBER) ? tokenNumber : 0);
+        }
+    }
+
+    // Lexes a whole program, deciding what each name is from the tokens
+    // around it instead of from the entry point used:
+    //   after `class`, `extends` or `new`           -> class name
+    //   after `.`                                   -> method name
+    //   followed by another name (`Dog d`)          -> class name
+    //   after a type and followed by `(`            -> method name
+    //   anything else                               -> variable
+    // The last two rules need one token of lookahead, so a name is
+    // reclassified in place once the token after it arrives.
+    public TokenBuffer tokenizeProgramBuffer() throws TokenizerException {
+        final TokenBuffer tokens = new TokenBuffer(endOfInput ? (limit - offset) / 4 + 16 : TokenBuffer.DEFAULT_CAPACITY);
+        TokenKind kind = scanToken();
+
+        while (kind != null) {
+            addScanned(tokens, classifyNext(tokens, kind));
+            kind = scanToken();
+        }
+        return tokens;
+    }
+
+    // Applies the rules to kind, the token about to be added to tokens:
+    // returns what it is, and revises the token before it in place
+    private static TokenKind classifyNext(final TokenBuffer tokens, final TokenKind kind) {
+        final int index = tokens.size();
+        final TokenKind previous = (index > 0) ? tokens.kind(index - 1) : null;
+        final TokenKind classified = nameKind(kind, previous);
+        final TokenKind revised = revisedPreviousKind(classified, previous,
+                                                      (index > 1) ? tokens.kind(index - 2) : null);
+        if (revised != null) {
+            tokens.setKind(index - 1, revised);
+        }
+        return classified;
+    }
+
+    // the first two rules of tokenizeProgramBuffer: what a name is, given
+    // the token before it
+    static TokenKind nameKind(final TokenKind kind, final TokenKind previous) {
+        if (kind == TokenKind.VARIABLE) {
+            if (previous == TokenKind.CLASS || previous == TokenKind.EXTENDS || previous == TokenKind.NEW) {
+                return TokenKind.CLASS_NAME;
+            } else if (previous == TokenKind.DOT) {
+                return TokenKind.METHOD_NAME;
+            }
+        }
+        return kind;
+    }
+
+    // the last two rules: what the previous token turns out to be once
+    // kind follows it, or null if it stays as it is
+    static TokenKind revisedPreviousKind(final TokenKind kind,
+                                         final TokenKind previous,
+                                         final TokenKind secondPrevious) {
+        if (previous != TokenKind.VARIABLE) {
+            return null;
+        } else if (kind == TokenKind.VARIABLE) {
+            return TokenKind.CLASS_NAME;
+        } else if (kind == TokenKind.LEFT_PARENTHESIS && isType(secondPrevious)) {
+            return TokenKind.METHOD_NAME;
+        }
+        return null;
+    }
+
+    private static boolean isType(final TokenKind kind) {
+        return (kind == TokenKind.INT || kind == TokenKind.BOOLEAN ||
+                kind == TokenKind.STRING || kind == TokenKind.CLASS_NAME);
+    }
+
+    public List<Token> tokenizeProgram() throws TokenizerException {
+        return tokenizeProgramBuffer().toList();
+    }
+
+    // Like tokenizeBuffer, but lexical errors don't stop the scan: each
+    // becomes an ERROR token and a Diagnostic, see getDiagnostics().
+    // Can still fail if a streamed input cannot be read.
+    public TokenBuffer tokenizeRecovering() throws TokenizerException {
+        recovering = true;
+        try {
+            return tokenizeBuffer();
+        } finally {
+            recovering = false;
         }
-        return retval;
+    }
+
+    // errors collected by tokenizeRecovering, in source order
+    public List<Diagnostic> getDiagnostics() {
+        return (diagnostics == null) ? new ArrayList<Diagnostic>() : diagnostics;
     }
 
     public List<Token> tokenize() throws TokenizerException {
@@ -278,4 +1176,4 @@ public class Tokenizer {
         }
         return tokens;
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,15 @@
 package com.jamascript.lexer;
 
 public class TokenizerException extends Exception {
-}
\ No newline at end of file
+    public TokenizerException() {
+        super();
+    }
+
+    public TokenizerException(final String message) {
+        super(message);
+    }
+
+    public TokenizerException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
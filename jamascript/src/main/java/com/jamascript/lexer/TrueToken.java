@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class TrueToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.TRUE;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof TrueToken;
     }
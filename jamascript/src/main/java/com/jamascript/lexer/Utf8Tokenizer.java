@@ -0,0 +1,399 @@
+package com.jamascript.lexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+// Tokenizer that scans UTF-8 bytes in place, typically a file mapped with
+// map(). It drives the same DFA as Tokenizer: ASCII bytes are classified
+// straight from the table, and only bytes of multi-byte sequences get
+// decoded to a code point. Nothing is decoded into chars except names
+// and string values. Offsets are in bytes.
+//
+// Runs of spaces and comment bodies are skipped eight bytes at a time,
+// testing all bytes of a long at once with bit tricks. That is safe on
+// UTF-8 because no byte of a multi-byte sequence is ASCII.
+public class Utf8Tokenizer {
+    // longest keyword, "constructor"
+    private static final int MAX_KEYWORD_LENGTH = 11;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final ByteBuffer bytes;
+    private final int limit;
+
+    // index of the next byte to scan
+    private int offset;
+
+    // start of the lexeme the last call to scan() stopped on
+    private int tokenStart;
+
+    // value of the last number scanned
+    private int tokenNumber;
+
+    // value of the last string literal scanned
+    private String tokenString;
+
+    // bytes taken by the code point last returned from decode()
+    private int width;
+
+    // decoded chars of the last name
+    private char[] chars = new char[32];
+
+    // Lexes bytes[position, limit); the buffer's own position is not moved
+    public Utf8Tokenizer(final ByteBuffer bytes) {
+        // big endian, so the first byte is the top of a long
+        this.bytes = bytes.slice().order(ByteOrder.BIG_ENDIAN);
+        limit = this.bytes.limit();
+        offset = 0;
+    }
+
+    // Maps the whole file read-only. The mapping stays valid after the
+    // channel is closed, and is released when the buffer is collected.
+    public static Utf8Tokenizer map(final File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            return new Utf8Tokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            input.close();
+        }
+    }
+
+    // Code point of the multi-byte sequence starting at position; sets
+    // width. Only well-formed UTF-8 is accepted: no overlong forms, no
+    // surrogates and nothing past U+10FFFF, so the result is always a
+    // code point Character.toChars takes.
+    private int decode(final int position) throws TokenizerException {
+        final int lead = bytes.get(position) & 0xFF;
+        final int length;
+        final int smallest;
+        int codePoint;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            length = 2;
+            smallest = 0x80;
+            codePoint = lead & 0x1F;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            length = 3;
+            smallest = 0x800;
+            codePoint = lead & 0x0F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            length = 4;
+            smallest = 0x10000;
+            codePoint = lead & 0x07;
+        } else {
+            // a continuation byte, a lead of an overlong two-byte form
+            // (C0, C1) or of a code point past U+10FFFF (F5 and up)
+            throw new TokenizerException("invalid UTF-8 at byte " + position);
+        }
+        if (position + length > limit) {
+            throw new TokenizerException("truncated UTF-8 at byte " + position);
+        }
+        for (int index = 1; index < length; index++) {
+            final int next = bytes.get(position + index);
+            if ((next & 0xC0) != 0x80) {
+                throw new TokenizerException("invalid UTF-8 at byte " + position);
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        if (codePoint < smallest) {
+            throw new TokenizerException("overlong UTF-8 at byte " + position);
+        } else if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            throw new TokenizerException("UTF-8 encoded surrogate at byte " + position);
+        } else if (codePoint > Character.MAX_CODE_POINT) {
+            throw new TokenizerException("UTF-8 past U+10FFFF at byte " + position);
+        }
+        width = length;
+        return codePoint;
+    }
+
+    // Same DFA walk as Tokenizer.scan, over bytes
+    private int scan() throws TokenizerException {
+        int position = offset;
+        int start = position;
+        int state = Tokenizer.S_START;
+
+        while (position < limit) {
+            final byte b = bytes.get(position);
+            final int charClass;
+            final int step;
+            if (b >= 0) {
+                charClass = Tokenizer.ASCII_CLASSES[b];
+                step = 1;
+            } else {
+                charClass = Tokenizer.classifyNonTable(decode(position));
+                step = width;
+            }
+            int next = Tokenizer.TRANSITIONS[state * Tokenizer.NUM_CLASSES + charClass];
+            if (next == Tokenizer.S_STOP) {
+                break;
+            }
+            position += step;
+            if (next == Tokenizer.S_LINE_COMMENT) {
+                position = lineEnd(position);
+                next = Tokenizer.S_START;
+            } else if (next == Tokenizer.S_BLOCK_COMMENT) {
+                position = blockCommentEnd(position);
+                next = Tokenizer.S_START;
+            } else if (next == Tokenizer.S_START) {
+                position = skipSpaces(position);
+            }
+            if (next == Tokenizer.S_START) {
+                start = position;
+            }
+            state = next;
+        }
+
+        offset = position;
+        tokenStart = start;
+        return state;
+    }
+
+    // high bit set in every byte of word that is zero, and nowhere else
+    private static long zeroBytes(final long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    // high bit set in every byte of word equal to b
+    private static long bytesEqual(final long word, final int b) {
+        return zeroBytes(word ^ (ONES * b));
+    }
+
+    // index of the first byte at or after from that is set in matches,
+    // given matches computed from the long at from
+    private static int firstMatch(final int from, final long matches) {
+        return from + (Long.numberOfLeadingZeros(matches) >>> 3);
+    }
+
+    // index of the first line break at or after position, or limit
+    private int lineEnd(int position) {
+        while (position + 8 <= limit) {
+            final long word = bytes.getLong(position);
+            final long breaks = bytesEqual(word, '\n') | bytesEqual(word, '\r');
+            if (breaks != 0) {
+                return firstMatch(position, breaks);
+            }
+            position += 8;
+        }
+        while (position < limit && bytes.get(position) != '\n' && bytes.get(position) != '\r') {
+            position++;
+        }
+        return position;
+    }
+
+    // index of the first `*` at or after position, or limit
+    private int indexOfStar(int position) {
+        while (position + 8 <= limit) {
+            final long stars = bytesEqual(bytes.getLong(position), '*');
+            if (stars != 0) {
+                return firstMatch(position, stars);
+            }
+            position += 8;
+        }
+        while (position < limit && bytes.get(position) != '*') {
+            position++;
+        }
+        return position;
+    }
+
+    // index just past the `*/` closing the comment whose body starts at
+    // position
+    private int blockCommentEnd(final int position) throws TokenizerException {
+        int star = indexOfStar(position);
+        while (star + 1 < limit) {
+            if (bytes.get(star + 1) == '/') {
+                return star + 2;
+            }
+            star = indexOfStar(star + 1);
+        }
+        tokenStart = position - 2;
+        throw new TokenizerException("unterminated comment");
+    }
+
+    // index of the first byte at or after position that is not an ASCII
+    // space, tab or line break; other whitespace is left to the DFA
+    private int skipSpaces(int position) {
+        while (position + 8 <= limit) {
+            final long word = bytes.getLong(position);
+            final long spaces = bytesEqual(word, ' ') | bytesEqual(word, '\t') |
+                                bytesEqual(word, '\n') | bytesEqual(word, '\r');
+            if (spaces != HIGH_BITS) {
+                return firstMatch(position, ~spaces & HIGH_BITS);
+            }
+            position += 8;
+        }
+        while (position < limit) {
+            final byte b = bytes.get(position);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    // Decodes bytes[start, end) into chars and returns how many were written
+    private int decodeChars(final int start, final int end) throws TokenizerException {
+        if (chars.length < end - start) {
+            // never more chars than bytes
+            chars = new char[Math.max(end - start, chars.length * 2)];
+        }
+        int count = 0;
+        int position = start;
+        while (position < end) {
+            final byte b = bytes.get(position);
+            if (b >= 0) {
+                chars[count++] = (char) b;
+                position++;
+            } else {
+                count += Character.toChars(decode(position), chars, count);
+                position += width;
+            }
+        }
+        return count;
+    }
+
+    private int scanNumber(final int start, final int end) throws TokenizerException {
+        long value = 0;
+        int position = start;
+        while (position < end) {
+            final byte b = bytes.get(position);
+            final int digit;
+            if (b >= 0) {
+                digit = b - '0';
+                position++;
+            } else {
+                digit = Character.digit(decode(position), 10);
+                position += width;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                final int count = decodeChars(start, end);
+                throw new TokenizerException("integer literal out of range: " +
+                        new String(chars, 0, count));
+            }
+        }
+        return (int) value;
+    }
+
+    // Bytes of a multi-byte sequence are never ASCII, so the closing quote
+    // and backslashes can be found without decoding. The value is decoded
+    // into a String, as there is no char array to share.
+    private void scanString() throws TokenizerException {
+        int position = offset;
+        boolean escapes = false;
+        boolean afterBackslash = false;
+        while (true) {
+            if (position == limit) {
+                throw new TokenizerException("unterminated string literal");
+            }
+            final byte b = bytes.get(position++);
+            if (afterBackslash) {
+                afterBackslash = false;
+            } else if (b == '\\') {
+                escapes = true;
+                afterBackslash = true;
+            } else if (b == '"') {
+                break;
+            }
+        }
+        offset = position;
+
+        final int count = decodeChars(tokenStart + 1, position - 1);
+        tokenString = escapes ? Tokenizer.unescape(chars, 0, count) : new String(chars, 0, count);
+        if (tokenString == null) {
+            throw new TokenizerException("invalid escape in string literal");
+        }
+    }
+
+    private TokenKind scanToken() throws TokenizerException {
+        final int state = scan();
+        if (state == Tokenizer.S_START) {
+            if (offset < limit) {
+                final byte b = bytes.get(offset);
+                final int c = (b >= 0) ? b : decode(offset);
+                throw new TokenizerException("unexpected character: " + new String(Character.toChars(c)));
+            }
+            return null;
+        } else if (state == Tokenizer.S_IDENTIFIER) {
+            final int length = offset - tokenStart;
+            if (length > MAX_KEYWORD_LENGTH || bytes.get(tokenStart) < 0) {
+                return TokenKind.VARIABLE;
+            }
+            final int count = decodeChars(tokenStart, offset);
+            final TokenKind keyword = Tokenizer.keyword(chars, 0, count);
+            return (keyword != null) ? keyword : TokenKind.VARIABLE;
+        } else if (state == Tokenizer.S_NUMBER) {
+            tokenNumber = scanNumber(tokenStart, offset);
+            return TokenKind.NUMBER;
+        } else if (state == Tokenizer.S_QUOTE) {
+            scanString();
+            return TokenKind.STRING_VALUE;
+        } else {
+            return Tokenizer.STATE_KINDS[state];
+        }
+    }
+
+    // Same pull interface as Tokenizer.nextKind
+    public TokenKind nextKind() throws TokenizerException {
+        return scanToken();
+    }
+
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    public int getTokenLength() {
+        return offset - tokenStart;
+    }
+
+    public long getTokenSpan() {
+        return Span.pack(tokenStart, offset - tokenStart);
+    }
+
+    public String getTokenName() throws TokenizerException {
+        final int count = decodeChars(tokenStart, offset);
+        return new String(chars, 0, count);
+    }
+
+    public int getTokenSymbol() throws TokenizerException {
+        final int count = decodeChars(tokenStart, offset);
+        return SymbolTable.global().intern(chars, 0, count);
+    }
+
+    public int getTokenNumber() {
+        return tokenNumber;
+    }
+
+    public CharSequence getTokenString() {
+        return tokenString;
+    }
+
+    public TokenBuffer tokenizeBuffer() throws TokenizerException {
+        final TokenBuffer tokens = new TokenBuffer(limit / 4 + 16);
+        TokenKind kind = scanToken();
+
+        while (kind != null) {
+            final int length = offset - tokenStart;
+            if (kind == TokenKind.VARIABLE) {
+                tokens.add(kind, tokenStart, length, getTokenSymbol());
+            } else if (kind == TokenKind.STRING_VALUE) {
+                tokens.addString(tokenStart, length, tokenString);
+            } else {
+                tokens.add(kind, tokenStart, length, (kind == TokenKind.NUMBER) ? tokenNumber : 0);
+            }
+            kind = scanToken();
+        }
+        return tokens;
+    }
+
+    public List<Token> tokenize() throws TokenizerException {
+        return tokenizeBuffer().toList();
+    }
+}
@@ -3,22 +3,35 @@ package com.jamascript.lexer;
 public class VariableToken implements Token {
     public final String name;
 
+    // index of name in SymbolTable.global()
+    public final int id;
+
     public VariableToken(final String name) {
         this.name = name;
+        this.id = SymbolTable.global().intern(name);
+    }
+
+    public VariableToken(final int id) {
+        this.name = SymbolTable.global().name(id);
+        this.id = id;
     }
 
     public int hashCode() {
-        return name.hashCode();
+        return id;
     }
 
     public String toString() {
         return "Variable(" + name + ")";
     }
 
+    public TokenKind kind() {
+        return TokenKind.VARIABLE;
+    }
+
     public boolean equals(final Object other) {
         if (other instanceof VariableToken) {
             final VariableToken asVar = (VariableToken) other;
-            return name.equals(asVar.name);
+            return id == asVar.id;
         } else {
             return false;
         }
@@ -1,6 +1,10 @@
 package com.jamascript.lexer;
 
 public class WhileToken implements Token {
+    public TokenKind kind() {
+        return TokenKind.WHILE;
+    }
+
     public boolean equals(final Object other) {
         return other instanceof WhileToken;
     }
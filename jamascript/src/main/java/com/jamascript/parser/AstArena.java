@@ -0,0 +1,280 @@
+package com.jamascript.parser;
+
+import com.jamascript.lexer.SymbolTable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A flat AST: every node is an index into four int columns, its kind,
+// its first child, its next sibling and a payload. There are no objects
+// per node, so a large program takes a few ints per node and a walk
+// over it reads memory in order. Nodes are added parent first, so
+// children come after their parent and a subtree is one run of indexes.
+//
+// Names are symbol ids from the global SymbolTable. AstConverter builds
+// an arena from the object AST and back, so passes that have not moved
+// to the arena keep working on objects.
+//
+// Children by kind; a payload not mentioned is unused:
+//   PROGRAM          list of classes, entry point statement
+//   CLASS_DEF        payload class name; extends (a CLASS_NAME),
+//                    lists of instance variables, constructor arguments,
+//                    super arguments, constructor statements, methods
+//   METHOD_DEF       payload method name; return type, list of
+//                    arguments, body
+//   VARDEC           payload variable name; type
+//   LIST             the elements
+//   CLASS_NAME       payload class name
+//   *_TYPE           CLASS_TYPE and CLASS_NAME_TYPE have the class name
+//                    as payload; NO_TYPE stands for a missing type
+//   VARIABLE_EXP     payload variable name
+//   INTEGER_EXP      payload value
+//   STRING_EXP       payload index of the value, see string()
+//   BOOLEAN_EXP      payload 1 for true, 0 for false
+//   OP_EXP           payload one of the OP_* operators; left, right
+//   METHOD_CALL_EXP  payload method name; target, then the arguments
+//   NEW_EXP          payload class name; the arguments
+//   BLOCK_STMT       the statements
+//   WHILE_STMT       guard, body
+//   IF_STMT          guard, true branch, false branch
+//   PRINTLN_STMT, RETURN_STMT, EXP_STMT   the expression
+//   VAR_INIT_STMT    vardec, expression
+public final class AstArena {
+    // node kinds
+    public static final int PROGRAM = 0;
+    public static final int CLASS_DEF = 1;
+    public static final int METHOD_DEF = 2;
+    public static final int VARDEC = 3;
+    public static final int LIST = 4;
+    public static final int CLASS_NAME = 5;
+    public static final int INT_TYPE = 6;
+    public static final int STRING_TYPE = 7;
+    public static final int BOOL_TYPE = 8;
+    public static final int VOID_TYPE = 9;
+    public static final int CLASS_TYPE = 10;
+    public static final int CLASS_NAME_TYPE = 11;
+    public static final int NO_TYPE = 12;
+    public static final int VARIABLE_EXP = 13;
+    public static final int INTEGER_EXP = 14;
+    public static final int STRING_EXP = 15;
+    public static final int BOOLEAN_EXP = 16;
+    public static final int OP_EXP = 17;
+    public static final int METHOD_CALL_EXP = 18;
+    public static final int NEW_EXP = 19;
+    public static final int BLOCK_STMT = 20;
+    public static final int WHILE_STMT = 21;
+    public static final int IF_STMT = 22;
+    public static final int PRINTLN_STMT = 23;
+    public static final int RETURN_STMT = 24;
+    public static final int EXP_STMT = 25;
+    public static final int VAR_INIT_STMT = 26;
+
+    // operators, the payload of OP_EXP
+    public static final int OP_PLUS = 0;
+    public static final int OP_MINUS = 1;
+    public static final int OP_MULTIPLY = 2;
+    public static final int OP_DIVIDE = 3;
+    public static final int OP_GREATER_THAN = 4;
+    public static final int OP_LESS_THAN = 5;
+    public static final int OP_GREATER_THAN_EQUALS = 6;
+    public static final int OP_LESS_THAN_EQUALS = 7;
+    public static final int OP_EQUALS_EQUALS = 8;
+
+    // no child or no sibling
+    public static final int NONE = -1;
+
+    private int[] kinds;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] payloads;
+    private int size;
+
+    // values of STRING_EXP nodes
+    private CharSequence[] strings;
+    private int stringCount;
+
+    public AstArena(final int capacity) {
+        final int nodes = Math.max(capacity, 16);
+        kinds = new int[nodes];
+        firstChildren = new int[nodes];
+        nextSiblings = new int[nodes];
+        payloads = new int[nodes];
+        strings = new CharSequence[16];
+    }
+
+    public AstArena() {
+        this(256);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Adds a node without children and returns its index
+    public int add(final int kind, final int payload) {
+        if (size == kinds.length) {
+            final int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+        }
+        kinds[size] = kind;
+        firstChildren[size] = NONE;
+        nextSiblings[size] = NONE;
+        payloads[size] = payload;
+        return size++;
+    }
+
+    // Adds a STRING_EXP node for value
+    public int addString(final CharSequence value) {
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, stringCount * 2);
+        }
+        strings[stringCount] = value;
+        return add(STRING_EXP, stringCount++);
+    }
+
+    // Makes child the next child of parent after previous, the child
+    // last linked to it or NONE for the first; returns child, so a loop
+    // can pass it back as previous
+    public int link(final int parent, final int previous, final int child) {
+        if (previous == NONE) {
+            firstChildren[parent] = child;
+        } else {
+            nextSiblings[previous] = child;
+        }
+        return child;
+    }
+
+    public int kind(final int node) {
+        return kinds[node];
+    }
+
+    public int payload(final int node) {
+        return payloads[node];
+    }
+
+    public int firstChild(final int node) {
+        return firstChildren[node];
+    }
+
+    public int nextSibling(final int node) {
+        return nextSiblings[node];
+    }
+
+    // the index-th child of node, or NONE if it has fewer
+    public int child(final int node, int index) {
+        int child = firstChildren[node];
+        while (index > 0 && child != NONE) {
+            child = nextSiblings[child];
+            index--;
+        }
+        return child;
+    }
+
+    public int childCount(final int node) {
+        int count = 0;
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    // text of the name in the payload of node
+    public String name(final int node) {
+        return SymbolTable.global().name(payloads[node]);
+    }
+
+    // value of the STRING_EXP node
+    public CharSequence string(final int node) {
+        return strings[payloads[node]];
+    }
+
+    public Node node(final int index) {
+        return new Node(this, index);
+    }
+
+    // A view of one node, for code that would rather not pass indexes
+    // around. It is two fields and holds nothing of its own.
+    public static final class Node {
+        public final AstArena arena;
+        public final int index;
+
+        public Node(final AstArena arena, final int index) {
+            this.arena = arena;
+            this.index = index;
+        }
+
+        public int kind() {
+            return arena.kind(index);
+        }
+
+        public int payload() {
+            return arena.payload(index);
+        }
+
+        public String name() {
+            return arena.name(index);
+        }
+
+        public CharSequence string() {
+            return arena.string(index);
+        }
+
+        // the index-th child
+        public Node child(final int index) {
+            final int child = arena.child(this.index, index);
+            if (child == NONE) {
+                throw new IndexOutOfBoundsException("no child " + index + " of node " + this.index);
+            }
+            return new Node(arena, child);
+        }
+
+        public int childCount() {
+            return arena.childCount(index);
+        }
+
+        public Iterable<Node> children() {
+            return new Iterable<Node>() {
+                public Iterator<Node> iterator() {
+                    return new Iterator<Node>() {
+                        private int next = arena.firstChild(index);
+
+                        public boolean hasNext() {
+                            return next != NONE;
+                        }
+
+                        public Node next() {
+                            if (next == NONE) {
+                                throw new NoSuchElementException();
+                            }
+                            final Node node = new Node(arena, next);
+                            next = arena.nextSibling(next);
+                            return node;
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(arena) * 31 + index;
+        }
+
+        public boolean equals(final Object other) {
+            return (other instanceof Node &&
+                    arena == ((Node) other).arena &&
+                    index == ((Node) other).index);
+        }
+
+        public String toString() {
+            return "Node(" + index + ", kind " + kind() + ", payload " + payload() + ")";
+        }
+    }
+}
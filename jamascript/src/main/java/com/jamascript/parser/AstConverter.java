@@ -0,0 +1,406 @@
+package com.jamascript.parser;
+
+import com.jamascript.parser.classInformation.*;
+import com.jamascript.parser.expressions.*;
+import com.jamascript.parser.methodInformation.MethodDef;
+import com.jamascript.parser.methodInformation.MethodName;
+import com.jamascript.parser.operators.*;
+import com.jamascript.parser.statements.*;
+import com.jamascript.typechecker.types.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Copies object ASTs into an AstArena and back; see AstArena for the
+// layout. A MethodCallExp's targetType and methodSig are filled in by
+// the typechecker and not part of the tree, so they are not copied.
+public final class AstConverter {
+    private AstConverter() {}
+
+    // Adds program to arena and returns the index of its PROGRAM node
+    public static int add(final AstArena arena, final Program program) {
+        final int node = arena.add(AstArena.PROGRAM, 0);
+        int last = arena.link(node, AstArena.NONE, addClassDefs(arena, program.classes));
+        arena.link(node, last, add(arena, program.entryPoint));
+        return node;
+    }
+
+    public static AstArena toArena(final Program program) {
+        final AstArena arena = new AstArena();
+        add(arena, program);
+        return arena;
+    }
+
+    private static int addClassDefs(final AstArena arena, final List<ClassDef> classDefs) {
+        final int list = arena.add(AstArena.LIST, 0);
+        int last = AstArena.NONE;
+        for (final ClassDef classDef : classDefs) {
+            last = arena.link(list, last, add(arena, classDef));
+        }
+        return list;
+    }
+
+    public static int add(final AstArena arena, final ClassDef classDef) {
+        final int node = arena.add(AstArena.CLASS_DEF, classDef.className.id);
+        int last = arena.link(node, AstArena.NONE,
+                              arena.add(AstArena.CLASS_NAME, classDef.extendsClassName.id));
+        last = arena.link(node, last, addVardecs(arena, classDef.instanceVariables));
+        last = arena.link(node, last, addVardecs(arena, classDef.constructorArguments));
+        last = arena.link(node, last, addExps(arena, classDef.superParams));
+        last = arena.link(node, last, addStmts(arena, AstArena.LIST, classDef.constructorBody));
+        final int methods = arena.add(AstArena.LIST, 0);
+        int lastMethod = AstArena.NONE;
+        for (final MethodDef methodDef : classDef.methods) {
+            lastMethod = arena.link(methods, lastMethod, add(arena, methodDef));
+        }
+        arena.link(node, last, methods);
+        return node;
+    }
+
+    public static int add(final AstArena arena, final MethodDef methodDef) {
+        final int node = arena.add(AstArena.METHOD_DEF, methodDef.mname.id);
+        int last = arena.link(node, AstArena.NONE, add(arena, methodDef.returnType));
+        last = arena.link(node, last, addVardecs(arena, methodDef.arguments));
+        arena.link(node, last, add(arena, methodDef.body));
+        return node;
+    }
+
+    public static int add(final AstArena arena, final Vardec vardec) {
+        final int node = arena.add(AstArena.VARDEC, vardec.variable.id);
+        arena.link(node, AstArena.NONE, add(arena, vardec.type));
+        return node;
+    }
+
+    private static int addVardecs(final AstArena arena, final List<Vardec> vardecs) {
+        final int list = arena.add(AstArena.LIST, 0);
+        int last = AstArena.NONE;
+        for (final Vardec vardec : vardecs) {
+            last = arena.link(list, last, add(arena, vardec));
+        }
+        return list;
+    }
+
+    public static int add(final AstArena arena, final Type type) {
+        if (type == null) {
+            return arena.add(AstArena.NO_TYPE, 0);
+        } else if (type instanceof IntType) {
+            return arena.add(AstArena.INT_TYPE, 0);
+        } else if (type instanceof StringType) {
+            return arena.add(AstArena.STRING_TYPE, 0);
+        } else if (type instanceof BoolType) {
+            return arena.add(AstArena.BOOL_TYPE, 0);
+        } else if (type instanceof VoidType) {
+            return arena.add(AstArena.VOID_TYPE, 0);
+        } else if (type instanceof ClassType) {
+            return arena.add(AstArena.CLASS_TYPE, ((ClassType) type).className.id);
+        } else if (type instanceof ClassNameType) {
+            return arena.add(AstArena.CLASS_NAME_TYPE, ((ClassNameType) type).className.id);
+        } else {
+            throw new IllegalArgumentException("unknown type: " + type);
+        }
+    }
+
+    public static int add(final AstArena arena, final Stmt stmt) {
+        if (stmt instanceof BlockStmt) {
+            return addStmts(arena, AstArena.BLOCK_STMT, ((BlockStmt) stmt).stmts);
+        } else if (stmt instanceof WhileStmt) {
+            final WhileStmt whileStmt = (WhileStmt) stmt;
+            final int node = arena.add(AstArena.WHILE_STMT, 0);
+            final int last = arena.link(node, AstArena.NONE, add(arena, whileStmt.guard));
+            arena.link(node, last, add(arena, whileStmt.body));
+            return node;
+        } else if (stmt instanceof IfStmt) {
+            final IfStmt ifStmt = (IfStmt) stmt;
+            final int node = arena.add(AstArena.IF_STMT, 0);
+            int last = arena.link(node, AstArena.NONE, add(arena, ifStmt.guard));
+            last = arena.link(node, last, add(arena, ifStmt.trueBranch));
+            arena.link(node, last, add(arena, ifStmt.falseBranch));
+            return node;
+        } else if (stmt instanceof PrintlnStmt) {
+            return addWrapped(arena, AstArena.PRINTLN_STMT, ((PrintlnStmt) stmt).exp);
+        } else if (stmt instanceof ReturnNonVoidStmt) {
+            return addWrapped(arena, AstArena.RETURN_STMT, ((ReturnNonVoidStmt) stmt).exp);
+        } else if (stmt instanceof ExpStmt) {
+            return addWrapped(arena, AstArena.EXP_STMT, ((ExpStmt) stmt).exp);
+        } else if (stmt instanceof VariableInitializationStmt) {
+            final VariableInitializationStmt init = (VariableInitializationStmt) stmt;
+            final int node = arena.add(AstArena.VAR_INIT_STMT, 0);
+            final int last = arena.link(node, AstArena.NONE, add(arena, init.vardec));
+            arena.link(node, last, add(arena, init.exp));
+            return node;
+        } else {
+            throw new IllegalArgumentException("unknown statement: " + stmt);
+        }
+    }
+
+    private static int addWrapped(final AstArena arena, final int kind, final Exp exp) {
+        final int node = arena.add(kind, 0);
+        arena.link(node, AstArena.NONE, add(arena, exp));
+        return node;
+    }
+
+    private static int addStmts(final AstArena arena, final int kind, final List<Stmt> stmts) {
+        final int node = arena.add(kind, 0);
+        int last = AstArena.NONE;
+        for (final Stmt stmt : stmts) {
+            last = arena.link(node, last, add(arena, stmt));
+        }
+        return node;
+    }
+
+    public static int add(final AstArena arena, final Exp exp) {
+        if (exp instanceof VariableExp) {
+            return arena.add(AstArena.VARIABLE_EXP, ((VariableExp) exp).variable.id);
+        } else if (exp instanceof IntegerLiteralExp) {
+            return arena.add(AstArena.INTEGER_EXP, ((IntegerLiteralExp) exp).value);
+        } else if (exp instanceof StringLiteralExp) {
+            return arena.addString(((StringLiteralExp) exp).value);
+        } else if (exp instanceof BooleanLiteralExp) {
+            return arena.add(AstArena.BOOLEAN_EXP, ((BooleanLiteralExp) exp).value ? 1 : 0);
+        } else if (exp instanceof OpExp) {
+            final OpExp opExp = (OpExp) exp;
+            final int node = arena.add(AstArena.OP_EXP, opCode(opExp.op));
+            final int last = arena.link(node, AstArena.NONE, add(arena, opExp.left));
+            arena.link(node, last, add(arena, opExp.right));
+            return node;
+        } else if (exp instanceof MethodCallExp) {
+            final MethodCallExp call = (MethodCallExp) exp;
+            final int node = arena.add(AstArena.METHOD_CALL_EXP, call.methodName.id);
+            int last = arena.link(node, AstArena.NONE, add(arena, call.target));
+            for (final Exp param : call.params) {
+                last = arena.link(node, last, add(arena, param));
+            }
+            return node;
+        } else if (exp instanceof NewExp) {
+            final NewExp newExp = (NewExp) exp;
+            final int node = arena.add(AstArena.NEW_EXP, newExp.className.id);
+            int last = AstArena.NONE;
+            for (final Exp param : newExp.params) {
+                last = arena.link(node, last, add(arena, param));
+            }
+            return node;
+        } else {
+            throw new IllegalArgumentException("unknown expression: " + exp);
+        }
+    }
+
+    private static int addExps(final AstArena arena, final List<Exp> exps) {
+        final int list = arena.add(AstArena.LIST, 0);
+        int last = AstArena.NONE;
+        for (final Exp exp : exps) {
+            last = arena.link(list, last, add(arena, exp));
+        }
+        return list;
+    }
+
+    public static int opCode(final Op op) {
+        if (op instanceof PlusOp) {
+            return AstArena.OP_PLUS;
+        } else if (op instanceof MinusOp) {
+            return AstArena.OP_MINUS;
+        } else if (op instanceof MultiplyOp) {
+            return AstArena.OP_MULTIPLY;
+        } else if (op instanceof DivideOp) {
+            return AstArena.OP_DIVIDE;
+        } else if (op instanceof GreaterThanOp) {
+            return AstArena.OP_GREATER_THAN;
+        } else if (op instanceof LessThanOp) {
+            return AstArena.OP_LESS_THAN;
+        } else if (op instanceof GreaterThanEqualsOp) {
+            return AstArena.OP_GREATER_THAN_EQUALS;
+        } else if (op instanceof LessThanEqualsOp) {
+            return AstArena.OP_LESS_THAN_EQUALS;
+        } else if (op instanceof EqualsEqualsOp) {
+            return AstArena.OP_EQUALS_EQUALS;
+        } else {
+            throw new IllegalArgumentException("unknown operator: " + op);
+        }
+    }
+
+    public static Op toOp(final int opCode) {
+        switch (opCode) {
+            case AstArena.OP_PLUS:
+                return new PlusOp();
+            case AstArena.OP_MINUS:
+                return new MinusOp();
+            case AstArena.OP_MULTIPLY:
+                return new MultiplyOp();
+            case AstArena.OP_DIVIDE:
+                return new DivideOp();
+            case AstArena.OP_GREATER_THAN:
+                return new GreaterThanOp();
+            case AstArena.OP_LESS_THAN:
+                return new LessThanOp();
+            case AstArena.OP_GREATER_THAN_EQUALS:
+                return new GreaterThanEqualsOp();
+            case AstArena.OP_LESS_THAN_EQUALS:
+                return new LessThanEqualsOp();
+            case AstArena.OP_EQUALS_EQUALS:
+                return new EqualsEqualsOp();
+            default:
+                throw new IllegalArgumentException("unknown operator code: " + opCode);
+        }
+    }
+
+    // The object AST of the PROGRAM node
+    public static Program toProgram(final AstArena arena, final int node) {
+        expectKind(arena, node, AstArena.PROGRAM);
+        final int classes = arena.firstChild(node);
+        final List<ClassDef> classDefs = new ArrayList<ClassDef>(arena.childCount(classes));
+        for (int child = arena.firstChild(classes); child != AstArena.NONE; child = arena.nextSibling(child)) {
+            classDefs.add(toClassDef(arena, child));
+        }
+        return new Program(classDefs, toStmt(arena, arena.nextSibling(classes)));
+    }
+
+    // The object AST of the first PROGRAM node, as added by toArena
+    public static Program toProgram(final AstArena arena) {
+        return toProgram(arena, 0);
+    }
+
+    public static ClassDef toClassDef(final AstArena arena, final int node) {
+        expectKind(arena, node, AstArena.CLASS_DEF);
+        final int extendsName = arena.firstChild(node);
+        final int instanceVariables = arena.nextSibling(extendsName);
+        final int constructorArguments = arena.nextSibling(instanceVariables);
+        final int superParams = arena.nextSibling(constructorArguments);
+        final int constructorBody = arena.nextSibling(superParams);
+        final int methods = arena.nextSibling(constructorBody);
+
+        final List<MethodDef> methodDefs = new ArrayList<MethodDef>(arena.childCount(methods));
+        for (int child = arena.firstChild(methods); child != AstArena.NONE; child = arena.nextSibling(child)) {
+            methodDefs.add(toMethodDef(arena, child));
+        }
+        return new ClassDef(new ClassName(arena.payload(node)),
+                            new ClassName(arena.payload(extendsName)),
+                            toVardecs(arena, instanceVariables),
+                            toVardecs(arena, constructorArguments),
+                            toExps(arena, arena.firstChild(superParams), arena.childCount(superParams)),
+                            toStmts(arena, constructorBody),
+                            methodDefs);
+    }
+
+    public static MethodDef toMethodDef(final AstArena arena, final int node) {
+        expectKind(arena, node, AstArena.METHOD_DEF);
+        final int returnType = arena.firstChild(node);
+        final int arguments = arena.nextSibling(returnType);
+        return new MethodDef(toType(arena, returnType),
+                             new MethodName(arena.payload(node)),
+                             toVardecs(arena, arguments),
+                             toStmt(arena, arena.nextSibling(arguments)));
+    }
+
+    public static Vardec toVardec(final AstArena arena, final int node) {
+        expectKind(arena, node, AstArena.VARDEC);
+        return new Vardec(toType(arena, arena.firstChild(node)), new Variable(arena.payload(node)));
+    }
+
+    private static List<Vardec> toVardecs(final AstArena arena, final int list) {
+        final List<Vardec> vardecs = new ArrayList<Vardec>(arena.childCount(list));
+        for (int child = arena.firstChild(list); child != AstArena.NONE; child = arena.nextSibling(child)) {
+            vardecs.add(toVardec(arena, child));
+        }
+        return vardecs;
+    }
+
+    public static Type toType(final AstArena arena, final int node) {
+        switch (arena.kind(node)) {
+            case AstArena.NO_TYPE:
+                return null;
+            case AstArena.INT_TYPE:
+                return new IntType();
+            case AstArena.STRING_TYPE:
+                return new StringType();
+            case AstArena.BOOL_TYPE:
+                return new BoolType();
+            case AstArena.VOID_TYPE:
+                return new VoidType();
+            case AstArena.CLASS_TYPE:
+                return new ClassType(new ClassName(arena.payload(node)));
+            case AstArena.CLASS_NAME_TYPE:
+                return new ClassNameType(new ClassName(arena.payload(node)));
+            default:
+                throw new IllegalArgumentException("not a type: node " + node);
+        }
+    }
+
+    public static Stmt toStmt(final AstArena arena, final int node) {
+        final int first = arena.firstChild(node);
+        switch (arena.kind(node)) {
+            case AstArena.BLOCK_STMT:
+                return new BlockStmt(toStmts(arena, node));
+            case AstArena.WHILE_STMT:
+                return new WhileStmt(toExp(arena, first), toStmt(arena, arena.nextSibling(first)));
+            case AstArena.IF_STMT: {
+                final int trueBranch = arena.nextSibling(first);
+                return new IfStmt(toExp(arena, first),
+                                  toStmt(arena, trueBranch),
+                                  toStmt(arena, arena.nextSibling(trueBranch)));
+            }
+            case AstArena.PRINTLN_STMT:
+                return new PrintlnStmt(toExp(arena, first));
+            case AstArena.RETURN_STMT:
+                return new ReturnNonVoidStmt(toExp(arena, first));
+            case AstArena.EXP_STMT:
+                return new ExpStmt(toExp(arena, first));
+            case AstArena.VAR_INIT_STMT:
+                return new VariableInitializationStmt(toVardec(arena, first),
+                                                      toExp(arena, arena.nextSibling(first)));
+            default:
+                throw new IllegalArgumentException("not a statement: node " + node);
+        }
+    }
+
+    // the children of node, as statements
+    private static List<Stmt> toStmts(final AstArena arena, final int node) {
+        final List<Stmt> stmts = new ArrayList<Stmt>(arena.childCount(node));
+        for (int child = arena.firstChild(node); child != AstArena.NONE; child = arena.nextSibling(child)) {
+            stmts.add(toStmt(arena, child));
+        }
+        return stmts;
+    }
+
+    public static Exp toExp(final AstArena arena, final int node) {
+        final int first = arena.firstChild(node);
+        switch (arena.kind(node)) {
+            case AstArena.VARIABLE_EXP:
+                return new VariableExp(new Variable(arena.payload(node)));
+            case AstArena.INTEGER_EXP:
+                return new IntegerLiteralExp(arena.payload(node));
+            case AstArena.STRING_EXP:
+                return new StringLiteralExp(arena.string(node));
+            case AstArena.BOOLEAN_EXP:
+                return new BooleanLiteralExp(arena.payload(node) != 0);
+            case AstArena.OP_EXP:
+                return new OpExp(toExp(arena, first),
+                                 toOp(arena.payload(node)),
+                                 toExp(arena, arena.nextSibling(first)));
+            case AstArena.METHOD_CALL_EXP:
+                return new MethodCallExp(toExp(arena, first),
+                                         new MethodName(arena.payload(node)),
+                                         toExps(arena, arena.nextSibling(first),
+                                                arena.childCount(node) - 1));
+            case AstArena.NEW_EXP:
+                return new NewExp(new ClassName(arena.payload(node)),
+                                  toExps(arena, first, arena.childCount(node)));
+            default:
+                throw new IllegalArgumentException("not an expression: node " + node);
+        }
+    }
+
+    // count expressions, from first along its siblings
+    private static List<Exp> toExps(final AstArena arena, final int first, final int count) {
+        final List<Exp> exps = new ArrayList<Exp>(count);
+        for (int child = first; child != AstArena.NONE; child = arena.nextSibling(child)) {
+            exps.add(toExp(arena, child));
+        }
+        return exps;
+    }
+
+    private static void expectKind(final AstArena arena, final int node, final int kind) {
+        if (arena.kind(node) != kind) {
+            throw new IllegalArgumentException("node " + node + " has kind " + arena.kind(node) +
+                                               ", expected " + kind);
+        }
+    }
+}
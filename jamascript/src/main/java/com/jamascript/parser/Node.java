@@ -1,5 +1,11 @@
 package com.jamascript.parser;
 
+// AST nodes never change once built, apart from what the typechecker
+// fills into a MethodCallExp. So nodes with children work out their
+// structural hash in the constructor, and equals checks identity and
+// the hashes before walking the subtrees. NodeFactory relies on both
+// to share equal subtrees. Nodes keep unmodifiable copies of their lists
+// of children, so the lists a node was built from may go on changing.
 public interface Node {
     
 }
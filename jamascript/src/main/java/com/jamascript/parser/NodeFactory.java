@@ -0,0 +1,105 @@
+package com.jamascript.parser;
+
+import com.jamascript.parser.classInformation.ClassDef;
+import com.jamascript.parser.expressions.*;
+import com.jamascript.parser.methodInformation.MethodDef;
+import com.jamascript.parser.statements.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hash-conses AST nodes: intern returns the one shared instance of each
+// structure it has seen, so a program that repeats literals, operators,
+// types and whole expressions holds each of them once, and equal shared
+// subtrees compare by identity. Lookups are cheap since nodes cache
+// their hashes (see Node).
+//
+// A MethodCallExp is never shared, as the typechecker writes the type
+// of its target into it, and that may differ between two calls that
+// look the same. Nor is anything with one inside, which falls out of
+// only sharing nodes whose children are all shared already.
+//
+// Drop the factory once parsing is done; what it shared stays shared.
+public class NodeFactory {
+    private final Map<Object, Object> shared = new HashMap<Object, Object>();
+
+    // the shared node equal to node, which becomes it if there is none
+    // yet; node itself if it can't be shared
+    @SuppressWarnings("unchecked")
+    public <T> T intern(final T node) {
+        final Object existing = shared.get(node);
+        if (existing != null) {
+            return (T) existing;
+        }
+        if (canShare(node)) {
+            shared.put(node, node);
+        }
+        return node;
+    }
+
+    // number of distinct nodes shared
+    public int size() {
+        return shared.size();
+    }
+
+    private boolean isShared(final Object node) {
+        return node == null || shared.get(node) == node;
+    }
+
+    private boolean allShared(final List<?> nodes) {
+        for (final Object node : nodes) {
+            if (!isShared(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean canShare(final Object node) {
+        if (node instanceof MethodCallExp) {
+            return false;
+        } else if (node instanceof OpExp) {
+            final OpExp exp = (OpExp) node;
+            return isShared(exp.left) && isShared(exp.op) && isShared(exp.right);
+        } else if (node instanceof NewExp) {
+            return allShared(((NewExp) node).params);
+        } else if (node instanceof WhileStmt) {
+            final WhileStmt stmt = (WhileStmt) node;
+            return isShared(stmt.guard) && isShared(stmt.body);
+        } else if (node instanceof IfStmt) {
+            final IfStmt stmt = (IfStmt) node;
+            return isShared(stmt.guard) && isShared(stmt.trueBranch) && isShared(stmt.falseBranch);
+        } else if (node instanceof BlockStmt) {
+            return allShared(((BlockStmt) node).stmts);
+        } else if (node instanceof PrintlnStmt) {
+            return isShared(((PrintlnStmt) node).exp);
+        } else if (node instanceof ReturnNonVoidStmt) {
+            return isShared(((ReturnNonVoidStmt) node).exp);
+        } else if (node instanceof ExpStmt) {
+            return isShared(((ExpStmt) node).exp);
+        } else if (node instanceof VariableInitializationStmt) {
+            final VariableInitializationStmt stmt = (VariableInitializationStmt) node;
+            return isShared(stmt.vardec) && isShared(stmt.exp);
+        } else if (node instanceof Vardec) {
+            return isShared(((Vardec) node).type);
+        } else if (node instanceof MethodDef) {
+            final MethodDef methodDef = (MethodDef) node;
+            return isShared(methodDef.returnType) && allShared(methodDef.arguments) &&
+                   isShared(methodDef.body);
+        } else if (node instanceof ClassDef) {
+            final ClassDef classDef = (ClassDef) node;
+            return (allShared(classDef.instanceVariables) &&
+                    allShared(classDef.constructorArguments) &&
+                    allShared(classDef.superParams) &&
+                    allShared(classDef.constructorBody) &&
+                    allShared(classDef.methods));
+        } else if (node instanceof Program) {
+            final Program program = (Program) node;
+            return allShared(program.classes) && isShared(program.entryPoint);
+        } else {
+            // leaves: literals, variables, operators and types
+            return true;
+        }
+    }
+}
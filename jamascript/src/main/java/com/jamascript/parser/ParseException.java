@@ -1,7 +1,44 @@
 package com.jamascript.parser;
 
+import com.jamascript.lexer.LineIndex;
+import com.jamascript.lexer.Span;
+
+// Parse errors carry their position in the source instead of a stack
+// trace: the trace would only ever point into the parser, and filling
+// it in is most of the cost of creating the exception. The message is
+// assembled when it is asked for.
 public class ParseException extends Exception {
+    // packed source span of the offending token, or Span.NONE
+    public final long span;
+
+    // used to turn span into a line and column; may be null
+    private final LineIndex lines;
+
+    // appended to the message, usually the token found instead of the
+    // expected one
+    private final Object detail;
+
     public ParseException(final String message) {
-        super(message);
+        this(message, null, Span.NONE, null);
+    }
+
+    public ParseException(final String message, final long span, final LineIndex lines) {
+        this(message, null, span, lines);
+    }
+
+    public ParseException(final String message, final Object detail, final long span, final LineIndex lines) {
+        super(message, null, false, false);
+        this.detail = detail;
+        this.span = span;
+        this.lines = lines;
+    }
+
+    public String getMessage() {
+        final String message = (detail != null) ? super.getMessage() + detail : super.getMessage();
+        if (lines != null && Span.isKnown(span)) {
+            return message + " at " + lines.describe(span);
+        } else {
+            return message;
+        }
     }
 }
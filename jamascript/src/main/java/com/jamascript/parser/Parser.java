@@ -13,421 +13,643 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class Parser {
-    private final List<Token> tokens;
+    // Positions passed around the parser are absolute token indexes;
+    // the source only holds the tokens from its position() onwards
+    private final TokenSource tokens;
 
-    public Parser(final List<Token> tokens) {
+    // source lines, for locations in error messages; may be null
+    private final LineIndex lines;
+
+    // Position of the next token to parse. The read* productions start at
+    // the cursor, move it along and return their node, so parsing
+    // allocates nothing but the AST. Each leaves the cursor where the
+    // matching parse* method's ParseResult points.
+    private int cursor;
+
+    // shares equal subtrees when set; see setNodeFactory
+    private NodeFactory nodes;
+
+    // where nodes came from in the source, when set; see setSourceSpans
+    private SourceSpans spans;
+
+    public Parser(final TokenSource tokens, final LineIndex lines) {
         this.tokens = tokens;
+        this.lines = lines;
+    }
+
+    public Parser(final TokenSource tokens) {
+        this(tokens, null);
+    }
+
+    public Parser(final TokenBuffer tokens, final LineIndex lines) {
+        this(new BufferTokenSource(tokens), lines);
+    }
+
+    public Parser(final TokenBuffer tokens) {
+        this(tokens, null);
+    }
+
+    public Parser(final List<Token> tokens) {
+        this(TokenBuffer.fromTokens(tokens));
+    }
+
+    public int getPosition() {
+        return cursor;
+    }
+
+    public void setPosition(final int position) {
+        cursor = position;
+    }
+
+    // Builds nodes through factory from now on, so equal subtrees are
+    // parsed into one shared instance; null goes back to fresh nodes
+    public void setNodeFactory(final NodeFactory factory) {
+        nodes = factory;
+    }
+
+    private <T> T share(final T node) {
+        return (nodes != null) ? nodes.intern(node) : node;
+    }
+
+    // Records the span of every expression, statement, vardec, method
+    // and class parsed from now on in spans; null stops recording
+    public void setSourceSpans(final SourceSpans spans) {
+        this.spans = spans;
+    }
+
+    // node, spanning the tokens from first to last
+    private <T> T located(final T node, final int first, final int last) {
+        if (spans != null) {
+            spans.put(node, Span.cover(spanAt(first), spanAt(last)));
+        }
+        return node;
+    }
+
+    // kind of the token at position, or null if there is none there
+    // or it has already been released
+    private TokenKind peek(final int position) throws ParseException {
+        final int ahead = position - tokens.position();
+        if (ahead < 0) {
+            return null;
+        }
+        try {
+            return tokens.peek(ahead);
+        } catch (final TokenizerException e) {
+            throw new ParseException(e.getMessage());
+        }
     }
 
     // helper functions
-    public Token getToken(final int position) throws ParseException {
-        if (position >= 0 && position < tokens.size()) {
-            return tokens.get(position);
+    public TokenKind getKind(final int position) throws ParseException {
+        final TokenKind kind = peek(position);
+        if (kind != null) {
+            return kind;
         } else {
-            throw new ParseException("Invalid token position: " + position);
+            throw errorAt(position, "Invalid token position: " + position);
+        }
+    }
+
+    // the following read a token getKind has already checked
+
+    private long spanAt(final int position) {
+        try {
+            return tokens.peekSpan(position - tokens.position());
+        } catch (final TokenizerException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int payloadAt(final int position) {
+        try {
+            return tokens.peekPayload(position - tokens.position());
+        } catch (final TokenizerException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CharSequence stringAt(final int position) {
+        try {
+            return tokens.peekString(position - tokens.position());
+        } catch (final TokenizerException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Token tokenAt(final int position, final TokenKind kind) {
+        final CharSequence text = (kind == TokenKind.STRING_VALUE) ? stringAt(position) : null;
+        return kind.makeToken(text, payloadAt(position));
+    }
+
+    // error pointing at the token at position
+    private ParseException errorAt(final int position, final String message) throws ParseException {
+        final long span = (peek(position) != null) ? spanAt(position) : Span.NONE;
+        return new ParseException(message, span, lines);
+    }
+
+    // error for finding the token at position instead of what message
+    // describes; the token is only shown if the message is asked for
+    private ParseException unexpectedAt(final int position, final String message) throws ParseException {
+        final TokenKind kind = peek(position);
+        if (kind == null) {
+            return errorAt(position, "Invalid token position: " + position);
+        }
+        return new ParseException(message, tokenAt(position, kind), spanAt(position), lines);
+    }
+
+    // Drops the tokens before position from the source, so a streamed
+    // source does not keep what the parser will never look at again.
+    // Only done once everything before position has been parsed for good.
+    private void release(final int position) throws ParseException {
+        try {
+            while (tokens.position() < position && tokens.peek(0) != null) {
+                tokens.advance();
+            }
+        } catch (final TokenizerException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    // The productions below follow src/main/grammar/jamascript.grammar,
+    // choosing alternatives from the GrammarTables generated from it.
+
+    private static boolean isOperandStart(final TokenKind kind) {
+        return GrammarTables.contains(GrammarTables.FIRST_OPERAND, kind);
+    }
+
+    // The alternative of a nonterminal that the token at position selects,
+    // read from its GrammarTables prediction table: one of the table's
+    // constants, or 0 if the token can't start any. Productions switch on
+    // it, and as the constants are dense the switch is a tableswitch.
+    private int select(final byte[] table, final int position) throws ParseException {
+        return table[GrammarTables.column(getKind(position))];
+    }
+
+    // Same as select, but the end of the input selects whatever the table
+    // has for it. The list loops use it to decide from one token whether
+    // another element follows, and stop on anything else, leaving the
+    // error to whatever comes after the list.
+    private int selectOrEnd(final byte[] table, final int position) throws ParseException {
+        return table[GrammarTables.column(peek(position))];
+    }
+
+    // builds the token object at position; only needed for error messages
+    public Token getToken(final int position) throws ParseException {
+        return tokenAt(position, getKind(position));
+    }
+
+    // compares kinds only, so a passing check allocates nothing
+    public void assertTokenHereIs(final int position, final TokenKind expected) throws ParseException {
+        final TokenKind received = getKind(position);
+        if (received != expected) {
+            throw unexpectedAt(position, "expected: " + expected.token() + "; received: ");
         }
     }
 
     public void assertTokenHereIs(final int position, final Token expected) throws ParseException {
-        final Token received = getToken(position);
-        if (!expected.equals(received)) {
-            throw new ParseException("expected: " + expected + "; received: " + received);
+        final TokenKind received = getKind(position);
+        if (received != expected.kind() ||
+                (received.hasPayload() && !expected.equals(tokenAt(position, received)))) {
+            throw unexpectedAt(position, "expected: " + expected + "; received: ");
+        }
+    }
+
+    // symbol id of the name at position, which has to be of the given kind
+    public int getSymbolHere(final int position, final TokenKind expected) throws ParseException {
+        final TokenKind received = getKind(position);
+        if (received != expected) {
+            throw unexpectedAt(position, "expected: " + expected + " token; received: ");
         }
+        return payloadAt(position);
     }
 
     // op ::= `+` | `-` | `*` | `/` | `>` | `<` | `>=` | `<=` | `==` |
-    public ParseResult<Op> parseOp(final int position) throws ParseException {
-        final Token token = getToken(position);
-        if (token instanceof PlusToken) {
-            return new ParseResult<Op>(new PlusOp(), position + 1);
-        } else if (token instanceof MinusToken) {
-            return new ParseResult<Op>(new MinusOp(), position + 1);
-        } else if (token instanceof MultiplyToken) {
-            return new ParseResult<Op>(new MultiplyOp(), position + 1);
-        } else if (token instanceof DivideToken) {
-            return new ParseResult<Op>(new DivideOp(), position + 1);
-        } else if (token instanceof GreaterThanToken) {
-            return new ParseResult<Op>(new GreaterThanOp(), position + 1);
-        } else if (token instanceof LessThanToken) {
-            return new ParseResult<Op>(new LessThanOp(), position + 1);
-        } else if (token instanceof GreaterThanEqualToken) {
-            return new ParseResult<Op>(new GreaterThanEqualsOp(), position + 1);
-        } else if (token instanceof LessThanEqualToken) {
-            return new ParseResult<Op>(new LessThanEqualsOp(), position + 1);
-        } else if (token instanceof EqualEqualToken) {
-            return new ParseResult<Op>(new EqualsEqualsOp(), position + 1);
-        } else {
-            throw new ParseException("expected: operator token; received: " + token);
+    public Op readOp() throws ParseException {
+        switch (select(GrammarTables.OP, cursor)) {
+            case GrammarTables.OP_PLUS:
+                cursor++;
+                return share(new PlusOp());
+            case GrammarTables.OP_MINUS:
+                cursor++;
+                return share(new MinusOp());
+            case GrammarTables.OP_MULTIPLY:
+                cursor++;
+                return share(new MultiplyOp());
+            case GrammarTables.OP_DIVIDE:
+                cursor++;
+                return share(new DivideOp());
+            case GrammarTables.OP_GREATER_THAN:
+                cursor++;
+                return share(new GreaterThanOp());
+            case GrammarTables.OP_LESS_THAN:
+                cursor++;
+                return share(new LessThanOp());
+            case GrammarTables.OP_GREATER_THAN_EQUAL:
+                cursor++;
+                return share(new GreaterThanEqualsOp());
+            case GrammarTables.OP_LESS_THAN_EQUAL:
+                cursor++;
+                return share(new LessThanEqualsOp());
+            case GrammarTables.OP_EQUAL_EQUAL:
+                cursor++;
+                return share(new EqualsEqualsOp());
+            default:
+                throw unexpectedAt(cursor, "expected: operator token; received: ");
         }
     }
 
-    // exp ::= exp op exp
-    public ParseResult<Exp> parseExpOpExp(final int position) throws ParseException {
-        ParseResult<Exp> leftExp = parseExp(position);
-        boolean shouldRun = true;
-
-        while (shouldRun) {
-            try {
-                final ParseResult<Op> operator = parseOp(leftExp.position);
-                final ParseResult<Exp> rightExp = parseExp(operator.position);
-                leftExp = new ParseResult<Exp>(new OpExp(leftExp.result,
-                        operator.result,
-                        rightExp.result),
-                        rightExp.position);
-            } catch (final ParseException e) {
-                shouldRun = false;
+    // Binding powers of the infix operators by token kind ordinal, 0 for
+    // tokens that are not one. Higher binds tighter; all of them are left
+    // associative. A `.` starts a method call, which binds tightest.
+    private static final int[] BINDING_POWERS = new int[TokenKind.values().length];
+
+    static {
+        BINDING_POWERS[TokenKind.EQUAL_EQUAL.ordinal()] = 10;
+        BINDING_POWERS[TokenKind.LESS_THAN.ordinal()] = 20;
+        BINDING_POWERS[TokenKind.GREATER_THAN.ordinal()] = 20;
+        BINDING_POWERS[TokenKind.LESS_THAN_EQUAL.ordinal()] = 20;
+        BINDING_POWERS[TokenKind.GREATER_THAN_EQUAL.ordinal()] = 20;
+        BINDING_POWERS[TokenKind.PLUS.ordinal()] = 30;
+        BINDING_POWERS[TokenKind.MINUS.ordinal()] = 30;
+        BINDING_POWERS[TokenKind.MULTIPLY.ordinal()] = 40;
+        BINDING_POWERS[TokenKind.DIVIDE.ordinal()] = 40;
+        BINDING_POWERS[TokenKind.DOT.ordinal()] = 50;
+    }
+
+    private static int bindingPower(final TokenKind kind) {
+        return (kind != null) ? BINDING_POWERS[kind.ordinal()] : 0;
+    }
+
+    // exp ::= exp op exp | exp.methodname(exp*) | (exp) |
+    //         new classname(exp*) | var | int | string | true | false
+    // Precedence climbing: every token is looked at once and nothing is
+    // ever backtracked. An operator with no operand after it ends the
+    // expression instead of failing.
+    public Exp readExpOpExp() throws ParseException {
+        return readExpAbove(0);
+    }
+
+    // an operand followed by every operator binding tighter than minimum
+    private Exp readExpAbove(final int minimum) throws ParseException {
+        final int start = cursor;
+        Exp leftExp = readOperand();
+
+        while (true) {
+            final TokenKind kind = peek(cursor);
+            final int power = bindingPower(kind);
+            if (power <= minimum) {
+                break;
+            }
+            if (kind == TokenKind.DOT) {
+                final MethodName methodName =
+                    new MethodName(getSymbolHere(cursor + 1, TokenKind.METHOD_NAME));
+                cursor += 2;
+                final List<Exp> params = readArguments();
+                leftExp = located(new MethodCallExp(leftExp, methodName, params), start, cursor - 1);
+            } else if (isOperandStart(peek(cursor + 1))) {
+                final Op operator = readOp();
+                final Exp rightExp = readExpAbove(power);
+                leftExp = located(share(new OpExp(leftExp, operator, rightExp)), start, cursor - 1);
+            } else {
+                break;
             }
         }
 
         return leftExp;
     }
 
+    // operand ::= (exp) | new classname(exp*) | var | int | string | true | false
+    private Exp readOperand() throws ParseException {
+        switch (select(GrammarTables.OPERAND, cursor)) {
+            case GrammarTables.OPERAND_PARENTHESIZED:
+                cursor++;
+                final Exp inner = readExpAbove(0);
+                assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+                cursor++;
+                return inner;
+            case GrammarTables.OPERAND_NEW:
+                final int start = cursor;
+                final ClassName className = new ClassName(getSymbolHere(cursor + 1, TokenKind.CLASS_NAME));
+                cursor += 2;
+                final List<Exp> params = readArguments();
+                return located(share(new NewExp(className, params)), start, cursor - 1);
+            default:
+                return readExp();
+        }
+    }
+
+    // arguments ::= `(` [exp (`,` exp)*] `)`; leaves the cursor past the `)`
+    private List<Exp> readArguments() throws ParseException {
+        assertTokenHereIs(cursor, TokenKind.LEFT_PARENTHESIS);
+        final List<Exp> params = new ArrayList<Exp>();
+        cursor++;
+        if (selectOrEnd(GrammarTables.ARGS, cursor) == GrammarTables.ARGS_SOME) {
+            params.add(readExpAbove(0));
+            while (selectOrEnd(GrammarTables.MOREARGS, cursor) == GrammarTables.MOREARGS_MORE) {
+                cursor++;
+                params.add(readExpAbove(0));
+            }
+        }
+        assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+        cursor++;
+        return params;
+    }
+
     // exp ::= new classname(exp*)
-    public ParseResult<Exp> parseClassExp(final int position) throws ParseException {
-        final Token token = getToken(position);
-        if (token instanceof NewToken) {
-            final Token nextToken = getToken(position + 1);
-            if (nextToken instanceof ClassNameToken) {
-                ClassNameToken cName = (ClassNameToken) nextToken;
-                ClassName className = new ClassName(cName.name);
-
-                final List<Exp> params = new ArrayList<Exp>();
-                int curPosition = position + 3;
-                boolean shouldRun = true;
-                while (shouldRun) {
-                    try {
-                        final ParseResult<Exp> exp = parseExp(curPosition);
-                        params.add(exp.result);
-                        curPosition = exp.position + 1; // was exp.position
-                    } catch (final ParseException e) {
-                        shouldRun = false;
-                    }
-                }
+    public Exp readClassExp() throws ParseException {
+        final int position = cursor;
+        if (getKind(position) == TokenKind.NEW) {
+            if (getKind(position + 1) == TokenKind.CLASS_NAME) {
+                ClassName className = new ClassName(payloadAt(position + 1));
+
+                cursor = position + 2;
+                final List<Exp> params = readArguments();
 
-                return new ParseResult<Exp>(
-                        new NewExp(className, params),
-                        curPosition);
+                return located(share(new NewExp(className, params)), position, cursor - 1);
             } else {
-                throw new ParseException("expected: Class Name token; received: " + nextToken);
+                throw unexpectedAt(position + 1, "expected: Class Name token; received: ");
             }
         } else {
-            throw new ParseException("expected: New token; received: " + token);
+            throw unexpectedAt(position, "expected: New token; received: ");
         }
     }
     // exp ::= exp.methodname(exp*)
 
-    public ParseResult<Exp> parseMethodCallExp(final int position) throws ParseException {
-        ParseResult<Exp> variable = parseExp(position);
-        assertTokenHereIs(position + 1, new DotToken());
-        final Token token = getToken(position + 2);
-        MethodNameToken mName = (MethodNameToken) token;
-        MethodName methodName = new MethodName(mName.name);
+    public Exp readMethodCallExp() throws ParseException {
+        final int position = cursor;
+        Exp variable = readExp();
+        assertTokenHereIs(position + 1, TokenKind.DOT);
+        MethodName methodName = new MethodName(getSymbolHere(position + 2, TokenKind.METHOD_NAME));
 
-        assertTokenHereIs(position + 3, new LeftParenthesisToken());
+        assertTokenHereIs(position + 3, TokenKind.LEFT_PARENTHESIS);
 
         final List<Exp> params = new ArrayList<Exp>();
-        int curPosition = position + 4;
-        boolean shouldRun = true;
-        while (shouldRun) {
-            try {
-                final ParseResult<Exp> exp = parseExp(curPosition);
-                params.add(exp.result);
-                curPosition = exp.position;
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
+        cursor = position + 4;
+        while (GrammarTables.contains(GrammarTables.FIRST_ATOM, peek(cursor))) {
+            params.add(readExp());
         }
 
-        return new ParseResult<Exp>(
-                new MethodCallExp(variable.result, methodName, params),
-                curPosition);
+        return located(new MethodCallExp(variable, methodName, params), position, cursor - 1);
     }
 
     // comma_exp ::= [equals_exp (`,` equals_exp)*]
-    public ParseResult<List<Exp>> parseCommaExp(int position) throws ParseException {
+    public List<Exp> readCommaExp() throws ParseException {
         final List<Exp> exps = new ArrayList<Exp>();
 
-        try {
-            ParseResult<Exp> currentExp = parseExp(position);
-            exps.add(currentExp.result);
-            position = currentExp.position;
-            boolean shouldRun = true;
-            while (shouldRun) {
-                try {
-                    assertTokenHereIs(position, new CommaToken());
-                    currentExp = parseExp(currentExp.position + 1);
-                    exps.add(currentExp.result);
-                    position = currentExp.position;
-                } catch (final ParseException e) {
-                    shouldRun = false;
-                }
+        if (selectOrEnd(GrammarTables.ARGS, cursor) == GrammarTables.ARGS_SOME) {
+            exps.add(readExpOpExp());
+            while (selectOrEnd(GrammarTables.MOREARGS, cursor) == GrammarTables.MOREARGS_MORE) {
+                cursor++;
+                exps.add(readExpOpExp());
             }
-        } catch (final ParseException e) {
         }
 
-        return new ParseResult<List<Exp>>(exps, position);
+        return exps;
     }
 
     // exp ::= var | int | string | true| false |
-    public ParseResult<Exp> parseExp(final int position) throws ParseException {
-        final Token token = getToken(position);
-        if (token instanceof VariableToken) {
-            final String name = ((VariableToken) token).name;
-            return new ParseResult<Exp>(new VariableExp(new Variable(name)),
-                    position + 1);
-        } else if (token instanceof NumberToken) {
-            final int value = ((NumberToken) token).number;
-            return new ParseResult<Exp>(new IntegerLiteralExp(value), position + 1);
-        } else if (token instanceof StringValToken) {
-            final String value = ((StringValToken) token).value;
-            return new ParseResult<Exp>(new StringLiteralExp(value), position + 1);
-        } else if (token instanceof TrueToken) {
-            return new ParseResult<Exp>(new BooleanLiteralExp(true), position + 1);
-        } else if (token instanceof FalseToken) {
-            return new ParseResult<Exp>(new BooleanLiteralExp(false), position + 1);
-        } else {
-            throw new ParseException("Expected: expression token; received: " + token);
+    public Exp readExp() throws ParseException {
+        final int position = cursor;
+        switch (select(GrammarTables.ATOM, position)) {
+            case GrammarTables.ATOM_VARIABLE:
+                cursor++;
+                return located(share(new VariableExp(new Variable(payloadAt(position)))), position, position);
+            case GrammarTables.ATOM_NUMBER:
+                cursor++;
+                return located(share(new IntegerLiteralExp(payloadAt(position))), position, position);
+            case GrammarTables.ATOM_STRING:
+                cursor++;
+                return located(share(new StringLiteralExp(stringAt(position))), position, position);
+            case GrammarTables.ATOM_TRUE:
+                cursor++;
+                return located(share(new BooleanLiteralExp(true)), position, position);
+            case GrammarTables.ATOM_FALSE:
+                cursor++;
+                return located(share(new BooleanLiteralExp(false)), position, position);
+            default:
+                throw unexpectedAt(position, "Expected: expression token; received: ");
         }
     }
 
-    // stmt ::= vardec '=' exp
-    public ParseResult<Stmt> parseVarInit(final int position) throws ParseException {
-        Token token = getToken(position);
-        if (token instanceof IntToken) {
-            final ParseResult<Vardec> v = parseVardec(position);
-            final Vardec vardec = v.result;
-            final ParseResult<Exp> exp = parseExp(position + 3);
-            final Token nextToken = getToken(exp.position - 1);
-            if (nextToken instanceof NumberToken) {
-                return new ParseResult<Stmt>(
-                        new VariableInitializationStmt(vardec, exp.result), // was exp.position
-                        exp.position);
-            } else {
-                throw new ParseException("Expected: NumberToken; received : " + nextToken);
+    // varinit ::= type var `=` literal of the type | classname var `=` new classname(exp*)
+    // Stops before the `;`, which readStmt checks.
+    public Stmt readVarInit() throws ParseException {
+        final int position = cursor;
+        final int alternative = select(GrammarTables.VARINIT, position);
+        if (alternative == 0) {
+            throw unexpectedAt(position, "Expected: type token; received : ");
+        }
+        final Vardec vardec = readVardec();
+        assertTokenHereIs(position + 2, TokenKind.EQUAL);
+        cursor = position + 3;
+        switch (alternative) {
+            case GrammarTables.VARINIT_INT: {
+                final Exp exp = readExp();
+                if (getKind(cursor - 1) == TokenKind.NUMBER) {
+                    return located(share(new VariableInitializationStmt(vardec, exp)), position, cursor - 1);
+                } else {
+                    throw unexpectedAt(cursor - 1, "Expected: NumberToken; received : ");
+                }
             }
-        } else if (token instanceof StringToken) {
-            final ParseResult<Vardec> v = parseVardec(position);
-            final Vardec vardec = v.result;
-            final ParseResult<Exp> exp = parseExp(position + 3);
-            final Token nextToken = getToken(exp.position - 1);
-            if (nextToken instanceof StringValToken) {
-                return new ParseResult<Stmt>(
-                        new VariableInitializationStmt(vardec, exp.result),
-                        exp.position);
-            } else {
-                throw new ParseException("Expected: StringValToken; received : " + nextToken);
+            case GrammarTables.VARINIT_STRING: {
+                final Exp exp = readExp();
+                if (getKind(cursor - 1) == TokenKind.STRING_VALUE) {
+                    return located(share(new VariableInitializationStmt(vardec, exp)), position, cursor - 1);
+                } else {
+                    throw unexpectedAt(cursor - 1, "Expected: StringValToken; received : ");
+                }
             }
-        } else if (token instanceof BooleanToken) {
-            final ParseResult<Vardec> v = parseVardec(position);
-            final Vardec vardec = v.result;
-            final ParseResult<Exp> exp = parseExp(position + 3);
-            final Token nextToken = getToken(exp.position - 1);
-            if (nextToken instanceof TrueToken || nextToken instanceof FalseToken) {
-                return new ParseResult<Stmt>(
-                        new VariableInitializationStmt(vardec, exp.result),
-                        exp.position);
-            } else {
-                throw new ParseException("Expected: Boolean Token; received : " + nextToken);
+            case GrammarTables.VARINIT_BOOLEAN: {
+                final Exp exp = readExp();
+                final TokenKind nextKind = getKind(cursor - 1);
+                if (nextKind == TokenKind.TRUE || nextKind == TokenKind.FALSE) {
+                    return located(share(new VariableInitializationStmt(vardec, exp)), position, cursor - 1);
+                } else {
+                    throw unexpectedAt(cursor - 1, "Expected: Boolean Token; received : ");
+                }
             }
-        } else if (token instanceof ClassNameToken) {
-            final ParseResult<Vardec> v = parseVardec(position);
-            final Vardec vardec = v.result;
-
-            assertTokenHereIs(position + 2, new EqualToken());
-
-            final Token nextToken = getToken(position + 3);
-            if (nextToken instanceof NewToken) {
-                final ParseResult<Exp> exp = parseClassExp(position + 3);
-                return new ParseResult<Stmt>(
-                        new VariableInitializationStmt(vardec, exp.result),
-                        exp.position);
-            } else {
-                throw new ParseException("Expected: NewToken; received : " + nextToken);
+            default: {
+                if (getKind(position + 3) == TokenKind.NEW) {
+                    final Exp exp = readClassExp();
+                    return located(share(new VariableInitializationStmt(vardec, exp)), position, cursor - 1);
+                } else {
+                    throw unexpectedAt(position + 3, "Expected: NewToken; received : ");
+                }
             }
-        } else {
-            throw new ParseException("Expected: type token; received : " + token);
         }
     }
 
-    ParseResult<List<Stmt>> parseBlockStmts(int position) throws ParseException {
+    List<Stmt> readBlockStmts() throws ParseException {
         final List<Stmt> stmts = new ArrayList<Stmt>();
-        boolean shouldRun = true;
-        while (shouldRun) {
-            try {
-                final ParseResult<Stmt> stmt = parseStmt(position);
-                stmts.add(stmt.result);
-                position = stmt.position + 1; // was stmt.position
-
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
+        while (selectOrEnd(GrammarTables.STMTS, cursor) == GrammarTables.STMTS_MORE) {
+            stmts.add(readStmt());
+            cursor++; // was left on the statement's last token
         }
 
-        return new ParseResult<List<Stmt>>(stmts, position);
+        return stmts;
     }
 
     // stmt ::= while (exp) stmt | if (exp)stmt else stmt; | { stmt* } |
-    // println(exp);| return (exp) |
-    public ParseResult<Stmt> parseStmt(final int position) throws ParseException {
-        final Token token = getToken(position);
-        if (token instanceof WhileToken) {
-            assertTokenHereIs(position + 1, new LeftParenthesisToken());
-            final ParseResult<Exp> guard = parseExp(position + 2);
-            assertTokenHereIs(guard.position, new RightParenthesisToken());
-            final ParseResult<Stmt> body = parseStmt(guard.position + 1);
-            return new ParseResult<Stmt>(new WhileStmt(guard.result, body.result), body.position);
-        } else if (token instanceof IfToken) {
-            assertTokenHereIs(position + 1, new LeftParenthesisToken());
-            final ParseResult<Exp> guard = parseExpOpExp(position + 2);
-            assertTokenHereIs(guard.position, new RightParenthesisToken());
-            final ParseResult<Stmt> trueBranch = parseStmt(guard.position + 1);
-            assertTokenHereIs(trueBranch.position + 1, new ElseToken());
-            final ParseResult<Stmt> falseBranch = parseStmt(trueBranch.position + 2);
-            assertTokenHereIs(falseBranch.position, new RightCurlyBracketToken());
-            return new ParseResult<Stmt>(new IfStmt(guard.result,
-                    trueBranch.result,
-                    falseBranch.result),
-                    falseBranch.position);
-        } else if (token instanceof LeftCurlyBracketToken) {
-            final ParseResult<List<Stmt>> stmts = parseBlockStmts(position + 1);
-            assertTokenHereIs(stmts.position, new RightCurlyBracketToken());
-            return new ParseResult<Stmt>(new BlockStmt(stmts.result),
-                    stmts.position);
-        } else if (token instanceof PrintlnToken) {
-            assertTokenHereIs(position + 1, new LeftParenthesisToken());
-            final ParseResult<Exp> exp = parseExp(position + 2);
-            assertTokenHereIs(exp.position, new RightParenthesisToken());
-            assertTokenHereIs(exp.position + 1, new SemicolonToken());
-            return new ParseResult<Stmt>(new PrintlnStmt(exp.result),
-                    exp.position + 1);
-        } else if (token instanceof ReturnToken) {
-            assertTokenHereIs(position + 1, new LeftParenthesisToken());
-            final ParseResult<Exp> exp = parseExp(position + 2);
-            assertTokenHereIs(exp.position, new RightParenthesisToken());
-            assertTokenHereIs(exp.position + 1, new SemicolonToken());
-            return new ParseResult<Stmt>(new ReturnNonVoidStmt(exp.result),
-                    exp.position + 1);
-        } else if (token instanceof IntToken || token instanceof StringToken
-                || token instanceof BooleanToken || token instanceof ClassNameToken) {
-            return parseVarInit(position);
-        } else {
-            throw new ParseException("expected: statement token; received: " + token);
+    // println(exp);| return (exp) | varinit;
+    // Leaves the cursor on the statement's last token, so the token after
+    // a statement is at cursor + 1.
+    public Stmt readStmt() throws ParseException {
+        final int position = cursor;
+        switch (select(GrammarTables.STMT, position)) {
+            case GrammarTables.STMT_WHILE: {
+                assertTokenHereIs(position + 1, TokenKind.LEFT_PARENTHESIS);
+                cursor = position + 2;
+                final Exp guard = readExpOpExp();
+                assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+                cursor++;
+                final Stmt body = readStmt();
+                return located(share(new WhileStmt(guard, body)), position, cursor);
+            }
+            case GrammarTables.STMT_IF: {
+                assertTokenHereIs(position + 1, TokenKind.LEFT_PARENTHESIS);
+                cursor = position + 2;
+                final Exp guard = readExpOpExp();
+                assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+                cursor++;
+                final Stmt trueBranch = readStmt();
+                assertTokenHereIs(cursor + 1, TokenKind.ELSE);
+                cursor += 2;
+                // a closedstmt: one whose last token is a `}`
+                final Stmt falseBranch = readStmt();
+                assertTokenHereIs(cursor, TokenKind.RIGHT_CURLY_BRACKET);
+                return located(share(new IfStmt(guard, trueBranch, falseBranch)), position, cursor);
+            }
+            case GrammarTables.STMT_BLOCK: {
+                cursor = position + 1;
+                final List<Stmt> stmts = readBlockStmts();
+                assertTokenHereIs(cursor, TokenKind.RIGHT_CURLY_BRACKET);
+                return located(share(new BlockStmt(stmts)), position, cursor);
+            }
+            case GrammarTables.STMT_PRINTLN: {
+                assertTokenHereIs(position + 1, TokenKind.LEFT_PARENTHESIS);
+                cursor = position + 2;
+                final Exp exp = readExpOpExp();
+                assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+                assertTokenHereIs(cursor + 1, TokenKind.SEMICOLON);
+                cursor++;
+                return located(share(new PrintlnStmt(exp)), position, cursor);
+            }
+            case GrammarTables.STMT_RETURN: {
+                assertTokenHereIs(position + 1, TokenKind.LEFT_PARENTHESIS);
+                cursor = position + 2;
+                final Exp exp = readExpOpExp();
+                assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+                assertTokenHereIs(cursor + 1, TokenKind.SEMICOLON);
+                cursor++;
+                return located(share(new ReturnNonVoidStmt(exp)), position, cursor);
+            }
+            case GrammarTables.STMT_VARINIT: {
+                final Stmt stmt = readVarInit();
+                assertTokenHereIs(cursor, TokenKind.SEMICOLON);
+                return stmt;
+            }
+            default:
+                throw unexpectedAt(position, "expected: statement token; received: ");
         }
     }
 
-    // vardec ::= type x
-    public ParseResult<Vardec> parseVardec(final int position) throws ParseException {
-        final ParseResult<Type> type = parseType(position);
-        final ParseResult<Exp> v = parseExp(type.position);
-        final VariableExp var = (VariableExp) v.result;
-        return new ParseResult<Vardec>(new Vardec(type.result, new Variable(((Variable) var.variable).name)),
-                v.position);
+    // vardec ::= [type] x
+    public Vardec readVardec() throws ParseException {
+        final int position = cursor;
+        final Type type = readType();
+        if (getKind(cursor) != TokenKind.VARIABLE) {
+            throw unexpectedAt(cursor, "expected: " + TokenKind.VARIABLE + " token; received: ");
+        }
+        final Variable variable = new Variable(payloadAt(cursor));
+        cursor++;
+        return located(share(new Vardec(type, variable)), position, cursor - 1);
     }
 
     // type ::= int | bool | void | classname
-    public ParseResult<Type> parseType(int position) throws ParseException {
-        final Token token = getToken(position);
+    // Returns null if there is no type at the cursor, as opttype allows.
+    public Type readType() throws ParseException {
         Type type = null;
-        // try{}catch(ParseException e){}
-        if (token instanceof IntToken) {
-            type = new IntType();
-            position++;
-        } else if (token instanceof StringToken) {
-            type = new StringType();
-            position++;
-        } else if (token instanceof BooleanToken) {
-            type = new BoolType();
-            position++;
-        } else if (token instanceof ClassNameToken) {
-            ClassNameToken cName = (ClassNameToken) token;
-            ClassName className = new ClassName(cName.name);
-            type = new ClassType(className);
-            position++;
-        }
-
-        return new ParseResult<Type>(type, position);
+        switch (select(GrammarTables.TYPE, cursor)) {
+            case GrammarTables.TYPE_INT:
+                type = share(new IntType());
+                cursor++;
+                break;
+            case GrammarTables.TYPE_STRING:
+                type = share(new StringType());
+                cursor++;
+                break;
+            case GrammarTables.TYPE_BOOLEAN:
+                type = share(new BoolType());
+                cursor++;
+                break;
+            case GrammarTables.TYPE_CLASS:
+                ClassName className = new ClassName(payloadAt(cursor));
+                type = share(new ClassType(className));
+                cursor++;
+                break;
+        }
+
+        return type;
     }
 
     // vardecs_comma ::= [vardec (`,` vardec)*]
-    public ParseResult<List<Vardec>> parseVardecsComma(int position) throws ParseException {
+    public List<Vardec> readVardecsComma() throws ParseException {
         final List<Vardec> vardecs = new ArrayList<Vardec>();
 
-        try {
-            ParseResult<Vardec> vardec = parseVardec(position);
-            vardecs.add(vardec.result);
-            position = vardec.position;
-            boolean shouldRun = true;
-            while (shouldRun) {
-                try {
-                    assertTokenHereIs(position, new CommaToken());
-                    vardec = parseVardec(position + 1);
-                    vardecs.add(vardec.result);
-                    position = vardec.position;
-                } catch (final ParseException e) {
-                    shouldRun = false;
-                }
+        if (selectOrEnd(GrammarTables.PARAMS, cursor) == GrammarTables.PARAMS_SOME) {
+            vardecs.add(readVardec());
+            while (selectOrEnd(GrammarTables.MOREPARAMS, cursor) == GrammarTables.MOREPARAMS_MORE) {
+                cursor++;
+                vardecs.add(readVardec());
             }
-        } catch (final ParseException e) {
         }
 
-        return new ParseResult<List<Vardec>>(vardecs, position);
+        return vardecs;
     }
 
     // vardecs_semicolon ::= (vardec `;`)*
-    public ParseResult<List<Vardec>> parseVardecsSemicolon(int position) throws ParseException {
+    public List<Vardec> readVardecsSemicolon() throws ParseException {
         final List<Vardec> vardecs = new ArrayList<Vardec>();
-        boolean shouldRun = true;
-        while (shouldRun) {
-            try {
-                final ParseResult<Vardec> vardec = parseVardec(position);
-                assertTokenHereIs(vardec.position, new SemicolonToken());
-                vardecs.add(vardec.result);
-                position = vardec.position + 1;
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
+        while (selectOrEnd(GrammarTables.FIELDS, cursor) == GrammarTables.FIELDS_MORE) {
+            vardecs.add(readVardec());
+            assertTokenHereIs(cursor, TokenKind.SEMICOLON);
+            cursor++;
         }
 
-        return new ParseResult<List<Vardec>>(vardecs, position);
+        return vardecs;
 
     }
 
-    // methoddef ::= type methodname(vardecs*) stmt
-    public ParseResult<MethodDef> parseMethodDef(final int position) throws ParseException {
-        final ParseResult<Type> type = parseType(position);
-        final Token token = getToken(type.position);
-        if (token instanceof MethodNameToken) {
-            MethodNameToken mName = (MethodNameToken) token;
-            MethodName methodName = new MethodName(mName.name);
-            assertTokenHereIs(type.position + 1, new LeftParenthesisToken());
-            final ParseResult<List<Vardec>> arguments = parseVardecsComma(type.position + 2);
-            assertTokenHereIs(arguments.position, new RightParenthesisToken());
-            final ParseResult<Stmt> body = parseStmt(arguments.position + 1);
-            assertTokenHereIs(body.position, new RightCurlyBracketToken());
-            return new ParseResult<MethodDef>(new MethodDef(type.result,
+    // methoddef ::= [type] methodname(vardecs*) stmt
+    public MethodDef readMethodDef() throws ParseException {
+        final int position = cursor;
+        final Type type = readType();
+        if (getKind(cursor) == TokenKind.METHOD_NAME) {
+            MethodName methodName = new MethodName(payloadAt(cursor));
+            assertTokenHereIs(cursor + 1, TokenKind.LEFT_PARENTHESIS);
+            cursor += 2;
+            final List<Vardec> arguments = readVardecsComma();
+            assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+            cursor++;
+            // a closedstmt, see readStmt's if
+            final Stmt body = readStmt();
+            assertTokenHereIs(cursor, TokenKind.RIGHT_CURLY_BRACKET);
+            return located(share(new MethodDef(type,
                     methodName,
-                    arguments.result,
-                    body.result),
-                    body.position);
+                    arguments,
+                    body)), position, cursor);
         } else {
-            throw new ParseException("Expected MethodNameToken; Received: " + token);
+            throw unexpectedAt(cursor, "Expected MethodNameToken; Received: ");
         }
     }
 
-    public ParseResult<List<MethodDef>> parseMethodDefs(int position) throws ParseException {
+    public List<MethodDef> readMethodDefs() throws ParseException {
         final List<MethodDef> methodDefs = new ArrayList<MethodDef>();
-        boolean shouldRun = true;
-        while (shouldRun) {
-            try {
-                final ParseResult<MethodDef> methodDef = parseMethodDef(position);
-                methodDefs.add(methodDef.result);
-                position = methodDef.position + 1;
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
+        while (selectOrEnd(GrammarTables.METHODDEFS, cursor) == GrammarTables.METHODDEFS_MORE) {
+            methodDefs.add(readMethodDef());
+            cursor++;
         }
 
-        return new ParseResult<List<MethodDef>>(methodDefs, position);
+        return methodDefs;
     }
 
     // classdef ::= class classname extends classname {
@@ -439,86 +661,194 @@ public class Parser {
     // }
     // methoddef*
     // }
-    public ParseResult<ClassDef> parseClassDef(final int position) throws ParseException {
+    public ClassDef readClassDef() throws ParseException {
         // header
-        assertTokenHereIs(position, new ClassToken());
-        final Token token = getToken(position + 1);
-        ClassNameToken cName = (ClassNameToken) token;
-        ClassName className = new ClassName(cName.name);
+        final int position = cursor;
+        assertTokenHereIs(position, TokenKind.CLASS);
+        ClassName className = new ClassName(getSymbolHere(position + 1, TokenKind.CLASS_NAME));
 
-        assertTokenHereIs(position + 2, new ExtendsToken());
-        final Token token2 = getToken(position + 3);
-        ClassNameToken ecName = (ClassNameToken) token2;
-        ClassName extendsClassName = new ClassName(ecName.name);
+        assertTokenHereIs(position + 2, TokenKind.EXTENDS);
+        ClassName extendsClassName = new ClassName(getSymbolHere(position + 3, TokenKind.CLASS_NAME));
 
-        assertTokenHereIs(position + 4, new LeftCurlyBracketToken());
+        assertTokenHereIs(position + 4, TokenKind.LEFT_CURLY_BRACKET);
 
         // instance variables
-        final ParseResult<List<Vardec>> instanceVariables = parseVardecsSemicolon(position + 5);
+        cursor = position + 5;
+        final List<Vardec> instanceVariables = readVardecsSemicolon();
 
         // constructor header
-        assertTokenHereIs(instanceVariables.position, new ConstructorToken());
-        assertTokenHereIs(instanceVariables.position + 1, new LeftParenthesisToken());
-        final ParseResult<List<Vardec>> constructorArguments = parseVardecsComma(instanceVariables.position + 2);
-        assertTokenHereIs(constructorArguments.position, new RightParenthesisToken());
-        assertTokenHereIs(constructorArguments.position + 1, new LeftCurlyBracketToken());
+        assertTokenHereIs(cursor, TokenKind.CONSTRUCTOR);
+        assertTokenHereIs(cursor + 1, TokenKind.LEFT_PARENTHESIS);
+        cursor += 2;
+        final List<Vardec> constructorArguments = readVardecsComma();
+        assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+        assertTokenHereIs(cursor + 1, TokenKind.LEFT_CURLY_BRACKET);
 
         // constructor body
-        assertTokenHereIs(constructorArguments.position + 2, new SuperToken());
-        assertTokenHereIs(constructorArguments.position + 3, new LeftParenthesisToken());
-        final ParseResult<List<Exp>> superParams = parseCommaExp(constructorArguments.position + 4);
-        assertTokenHereIs(superParams.position, new RightParenthesisToken());
-        assertTokenHereIs(superParams.position + 1, new SemicolonToken());
+        assertTokenHereIs(cursor + 2, TokenKind.SUPER);
+        assertTokenHereIs(cursor + 3, TokenKind.LEFT_PARENTHESIS);
+        cursor += 4;
+        final List<Exp> superParams = readCommaExp();
+        assertTokenHereIs(cursor, TokenKind.RIGHT_PARENTHESIS);
+        assertTokenHereIs(cursor + 1, TokenKind.SEMICOLON);
 
-        final ParseResult<List<Stmt>> constructorBody = parseBlockStmts(superParams.position + 2);
+        cursor += 2;
+        final List<Stmt> constructorBody = readBlockStmts();
 
-        assertTokenHereIs(constructorBody.position, new RightCurlyBracketToken());
+        assertTokenHereIs(cursor, TokenKind.RIGHT_CURLY_BRACKET);
 
         // methods
-        final ParseResult<List<MethodDef>> methodDefs = parseMethodDefs(constructorBody.position + 1);
-        assertTokenHereIs(methodDefs.position, new RightCurlyBracketToken());
+        cursor++;
+        final List<MethodDef> methodDefs = readMethodDefs();
+        assertTokenHereIs(cursor, TokenKind.RIGHT_CURLY_BRACKET);
 
-        return new ParseResult<ClassDef>(new ClassDef(className,
+        return located(share(new ClassDef(className,
                 extendsClassName,
-                instanceVariables.result,
-                constructorArguments.result,
-                superParams.result,
-                constructorBody.result,
-                methodDefs.result),
-                methodDefs.position);
+                instanceVariables,
+                constructorArguments,
+                superParams,
+                constructorBody,
+                methodDefs)), position, cursor);
     }
 
-    public ParseResult<List<ClassDef>> parseClassDefs(int position) throws ParseException {
+    public List<ClassDef> readClassDefs() throws ParseException {
         final List<ClassDef> classDefs = new ArrayList<ClassDef>();
-        boolean shouldRun = true;
-
-        while (shouldRun) {
-            try {
-                final ParseResult<ClassDef> classDef = parseClassDef(position);
-                classDefs.add(classDef.result);
-                position = classDef.position + 1;
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
+        while (selectOrEnd(GrammarTables.CLASSDEFS, cursor) == GrammarTables.CLASSDEFS_MORE) {
+            classDefs.add(readClassDef());
+            cursor++;
+            // no production backs up into a class that has parsed
+            release(cursor);
         }
 
-        return new ParseResult<List<ClassDef>>(classDefs, position);
+        return classDefs;
     }
 
     // program ::= classdef* stmt
-    public ParseResult<Program> parseProgram(final int position) throws ParseException {
-        final ParseResult<List<ClassDef>> classDefs = parseClassDefs(position);
-        final ParseResult<Stmt> entryPoint = parseStmt(classDefs.position);
-        return new ParseResult<Program>(new Program(classDefs.result, entryPoint.result),
-                entryPoint.position);
+    public Program readProgram() throws ParseException {
+        final List<ClassDef> classDefs = readClassDefs();
+        final Stmt entryPoint = readStmt();
+        return new Program(classDefs, entryPoint);
     }
 
     public Program parseProgram() throws ParseException {
-        final ParseResult<Program> program = parseProgram(0);
-        if (program.position == tokens.size()) {
-            return program.result;
+        cursor = 0;
+        final Program program = readProgram();
+        if (peek(cursor) == null) {
+            return program;
         } else {
-            throw new ParseException("remaining tokens at end");
+            throw errorAt(cursor, "remaining tokens at end");
         }
     }
-}
\ No newline at end of file
+
+    // The same productions taking and returning positions, for callers
+    // that track positions themselves. Each one starts the cursor at
+    // position and pairs the node with where the cursor ended up.
+
+    public ParseResult<Op> parseOp(final int position) throws ParseException {
+        cursor = position;
+        final Op result = readOp();
+        return new ParseResult<Op>(result, cursor);
+    }
+
+    public ParseResult<Exp> parseExpOpExp(final int position) throws ParseException {
+        cursor = position;
+        final Exp result = readExpOpExp();
+        return new ParseResult<Exp>(result, cursor);
+    }
+
+    public ParseResult<Exp> parseClassExp(final int position) throws ParseException {
+        cursor = position;
+        final Exp result = readClassExp();
+        return new ParseResult<Exp>(result, cursor);
+    }
+
+    public ParseResult<Exp> parseMethodCallExp(final int position) throws ParseException {
+        cursor = position;
+        final Exp result = readMethodCallExp();
+        return new ParseResult<Exp>(result, cursor);
+    }
+
+    public ParseResult<List<Exp>> parseCommaExp(final int position) throws ParseException {
+        cursor = position;
+        final List<Exp> result = readCommaExp();
+        return new ParseResult<List<Exp>>(result, cursor);
+    }
+
+    public ParseResult<Exp> parseExp(final int position) throws ParseException {
+        cursor = position;
+        final Exp result = readExp();
+        return new ParseResult<Exp>(result, cursor);
+    }
+
+    public ParseResult<Stmt> parseVarInit(final int position) throws ParseException {
+        cursor = position;
+        final Stmt result = readVarInit();
+        return new ParseResult<Stmt>(result, cursor);
+    }
+
+    ParseResult<List<Stmt>> parseBlockStmts(final int position) throws ParseException {
+        cursor = position;
+        final List<Stmt> result = readBlockStmts();
+        return new ParseResult<List<Stmt>>(result, cursor);
+    }
+
+    public ParseResult<Stmt> parseStmt(final int position) throws ParseException {
+        cursor = position;
+        final Stmt result = readStmt();
+        return new ParseResult<Stmt>(result, cursor);
+    }
+
+    public ParseResult<Vardec> parseVardec(final int position) throws ParseException {
+        cursor = position;
+        final Vardec result = readVardec();
+        return new ParseResult<Vardec>(result, cursor);
+    }
+
+    public ParseResult<Type> parseType(final int position) throws ParseException {
+        cursor = position;
+        final Type result = readType();
+        return new ParseResult<Type>(result, cursor);
+    }
+
+    public ParseResult<List<Vardec>> parseVardecsComma(final int position) throws ParseException {
+        cursor = position;
+        final List<Vardec> result = readVardecsComma();
+        return new ParseResult<List<Vardec>>(result, cursor);
+    }
+
+    public ParseResult<List<Vardec>> parseVardecsSemicolon(final int position) throws ParseException {
+        cursor = position;
+        final List<Vardec> result = readVardecsSemicolon();
+        return new ParseResult<List<Vardec>>(result, cursor);
+    }
+
+    public ParseResult<MethodDef> parseMethodDef(final int position) throws ParseException {
+        cursor = position;
+        final MethodDef result = readMethodDef();
+        return new ParseResult<MethodDef>(result, cursor);
+    }
+
+    public ParseResult<List<MethodDef>> parseMethodDefs(final int position) throws ParseException {
+        cursor = position;
+        final List<MethodDef> result = readMethodDefs();
+        return new ParseResult<List<MethodDef>>(result, cursor);
+    }
+
+    public ParseResult<ClassDef> parseClassDef(final int position) throws ParseException {
+        cursor = position;
+        final ClassDef result = readClassDef();
+        return new ParseResult<ClassDef>(result, cursor);
+    }
+
+    public ParseResult<List<ClassDef>> parseClassDefs(final int position) throws ParseException {
+        cursor = position;
+        final List<ClassDef> result = readClassDefs();
+        return new ParseResult<List<ClassDef>>(result, cursor);
+    }
+
+    public ParseResult<Program> parseProgram(final int position) throws ParseException {
+        cursor = position;
+        final Program result = readProgram();
+        return new ParseResult<Program>(result, cursor);
+    }
+}
@@ -2,26 +2,34 @@ package com.jamascript.parser;
 import com.jamascript.parser.classInformation.*;
 import com.jamascript.parser.statements.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Program {
     public final List<ClassDef> classes;
     public final Stmt entryPoint;
 
+    private final int hash;
+
     public Program(final List<ClassDef> classes,
                    final Stmt entryPoint) {
-        this.classes = classes;
+        this.classes = Collections.unmodifiableList(new ArrayList<ClassDef>(classes));
         this.entryPoint = entryPoint;
+        this.hash = this.classes.hashCode() + entryPoint.hashCode();
     }
 
     public int hashCode() {
-        return classes.hashCode() + entryPoint.hashCode();
+        return hash;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof Program) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof Program) {
             final Program otherProgram = (Program)other;
-            return (classes.equals(otherProgram.classes) &&
+            return (hash == otherProgram.hash &&
+                    classes.equals(otherProgram.classes) &&
                     entryPoint.equals(otherProgram.entryPoint));
         } else {
             return false;
@@ -0,0 +1,34 @@
+package com.jamascript.parser;
+
+import com.jamascript.lexer.Span;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Packed source spans of AST nodes (see Span), kept beside the tree
+// rather than in it: the node types stay as they are, and a parse that
+// doesn't ask for spans pays nothing. Parser fills it in when given one
+// with setSourceSpans; the typechecker reads it to place its errors.
+//
+// Nodes are told apart by identity. A node a NodeFactory shares keeps
+// the span of the first place it was parsed.
+public class SourceSpans {
+    private final Map<Object, Long> spans = new IdentityHashMap<Object, Long>();
+
+    // records the span of node, unless it already has one
+    public void put(final Object node, final long span) {
+        if (!spans.containsKey(node)) {
+            spans.put(node, span);
+        }
+    }
+
+    // span of node, or Span.NONE if it wasn't parsed from source
+    public long get(final Object node) {
+        final Long span = spans.get(node);
+        return (span != null) ? span : Span.NONE;
+    }
+
+    public int size() {
+        return spans.size();
+    }
+}
@@ -6,20 +6,27 @@ public class Vardec {
     public final Type type;
     public final Variable variable;
 
+    // parseType lets the type be missing, so it can be null here
+    private final int hash;
+
     public Vardec(final Type type,
                   final Variable variable) {
         this.type = type;
         this.variable = variable;
+        this.hash = ((type == null) ? 0 : type.hashCode()) + variable.hashCode();
     }
 
     public int hashCode() {
-        return type.hashCode() + variable.hashCode();
+        return hash;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof Vardec) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof Vardec) {
             final Vardec otherVar = (Vardec)other;
-            return (type.equals(otherVar.type) &&
+            return (hash == otherVar.hash &&
+                    ((type == null) ? otherVar.type == null : type.equals(otherVar.type)) &&
                     variable.equals(otherVar.variable));
         } else {
             return false;
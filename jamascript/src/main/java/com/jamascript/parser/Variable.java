@@ -1,19 +1,30 @@
 package com.jamascript.parser;
 
+import com.jamascript.lexer.SymbolTable;
+
 public class Variable {
     public final String name;
 
+    // symbol id of name; compared instead of the text
+    public final int id;
+
     public Variable(final String name) {
         this.name = name;
+        this.id = SymbolTable.global().intern(name);
+    }
+
+    public Variable(final int id) {
+        this.name = SymbolTable.global().name(id);
+        this.id = id;
     }
 
     public int hashCode() {
-        return name.hashCode();
+        return id;
     }
     
     public boolean equals(final Object other) {
         return (other instanceof Variable &&
-                name.equals(((Variable)other).name));
+                id == ((Variable)other).id);
     }
 
     public String toString() {
@@ -4,6 +4,8 @@ import com.jamascript.parser.expressions.*;
 import com.jamascript.parser.methodInformation.MethodDef;
 import com.jamascript.parser.statements.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ClassDef {
@@ -15,6 +17,8 @@ public class ClassDef {
     public final List<Stmt> constructorBody;
     public final List<MethodDef> methods;
 
+    private final int hash;
+
     public ClassDef(final ClassName className,
                     final ClassName extendsClassName,
                     final List<Vardec> instanceVariables,
@@ -24,27 +28,35 @@ public class ClassDef {
                     final List<MethodDef> methods) {
         this.className = className;
         this.extendsClassName = extendsClassName;
-        this.instanceVariables = instanceVariables;
-        this.constructorArguments = constructorArguments;
-        this.superParams = superParams;
-        this.constructorBody = constructorBody;
-        this.methods = methods;
+        this.instanceVariables = copy(instanceVariables);
+        this.constructorArguments = copy(constructorArguments);
+        this.superParams = copy(superParams);
+        this.constructorBody = copy(constructorBody);
+        this.methods = copy(methods);
+        this.hash = (className.hashCode() +
+                     extendsClassName.hashCode() +
+                     this.instanceVariables.hashCode() +
+                     this.constructorArguments.hashCode() +
+                     this.superParams.hashCode() +
+                     this.constructorBody.hashCode() +
+                     this.methods.hashCode());
+    }
+
+    private static <T> List<T> copy(final List<T> list) {
+        return Collections.unmodifiableList(new ArrayList<T>(list));
     }
 
     public int hashCode() {
-        return (className.hashCode() +
-                extendsClassName.hashCode() +
-                instanceVariables.hashCode() +
-                constructorArguments.hashCode() +
-                superParams.hashCode() +
-                constructorBody.hashCode() +
-                methods.hashCode());
+        return hash;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof ClassDef) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof ClassDef) {
             final ClassDef otherClass = (ClassDef)other;
-            return (className.equals(otherClass.className) &&
+            return (hash == otherClass.hash &&
+                    className.equals(otherClass.className) &&
                     extendsClassName.equals(otherClass.extendsClassName) &&
                     instanceVariables.equals(otherClass.instanceVariables) &&
                     constructorArguments.equals(otherClass.constructorArguments) &&
@@ -1,19 +1,29 @@
 package com.jamascript.parser.classInformation;
 
+import com.jamascript.lexer.SymbolTable;
+
 public class ClassName {
     public final String name;
 
+    public final int id;
+
     public ClassName(final String name) {
         this.name = name;
+        this.id = SymbolTable.global().intern(name);
+    }
+
+    public ClassName(final int id) {
+        this.name = SymbolTable.global().name(id);
+        this.id = id;
     }
 
     public int hashCode() {
-        return name.hashCode();
+        return id;
     }
 
     public boolean equals(final Object other) {
         return (other instanceof ClassName &&
-                name.equals(((ClassName)other).name));
+                id == ((ClassName)other).id);
     }
     
     public String toString() {
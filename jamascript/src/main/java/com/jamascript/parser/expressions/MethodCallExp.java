@@ -1,5 +1,7 @@
 package com.jamascript.parser.expressions;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.jamascript.parser.methodInformation.MethodName;
@@ -13,26 +15,32 @@ public class MethodCallExp implements Exp {
     public final MethodName methodName;
     public final List<Exp> params;
 
+    // Hash of the parts that never change. targetType is left out, so
+    // the hash stays put when the typechecker fills it in, and nodes
+    // around the call can keep theirs.
+    private final int hash;
+
     public MethodCallExp(final Exp target,
                          final MethodName methodName,
                          final List<Exp> params) {
         this.target = target;
         targetType = null;
         this.methodName = methodName;
-        this.params = params;
+        this.params = Collections.unmodifiableList(new ArrayList<Exp>(params));
+        this.hash = target.hashCode() + methodName.hashCode() + this.params.hashCode();
     }
 
     public int hashCode() {
-        return (target.hashCode() +
-                ((targetType == null) ? 0 : targetType.hashCode()) +
-                methodName.hashCode() +
-                params.hashCode());
+        return hash;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof MethodCallExp) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof MethodCallExp) {
             final MethodCallExp call = (MethodCallExp)other;
-            return (target.equals(call.target) &&
+            return (hash == call.hash &&
+                    target.equals(call.target) &&
                     ((targetType == null && call.targetType == null) ||
                      (targetType != null && call.targetType != null &&
                       targetType.equals(call.targetType))) &&
@@ -1,26 +1,34 @@
 package com.jamascript.parser.expressions;
 import com.jamascript.parser.classInformation.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class NewExp implements Exp {
     public final ClassName className;
     public final List<Exp> params;
 
+    private final int hash;
+
     public NewExp(final ClassName className,
                   final List<Exp> params) {
         this.className = className;
-        this.params = params;
+        this.params = Collections.unmodifiableList(new ArrayList<Exp>(params));
+        this.hash = className.hashCode() + this.params.hashCode();
     }
 
     public int hashCode() {
-        return className.hashCode() + params.hashCode();
+        return hash;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof NewExp) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof NewExp) {
             final NewExp otherNew = (NewExp)other;
-            return (className.equals(otherNew.className) &&
+            return (hash == otherNew.hash &&
+                    className.equals(otherNew.className) &&
                     params.equals(otherNew.params));
         } else {
             return false;
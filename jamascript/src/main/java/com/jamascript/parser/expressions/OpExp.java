@@ -7,18 +7,24 @@ public class OpExp implements Exp {
     public final Op op;
     public final Exp right;
 
+    private final int hash;
+
     public OpExp(final Exp left,
             final Op op,
             final Exp right) {
         this.left = left;
         this.op = op;
         this.right = right;
+        this.hash = left.hashCode() + op.hashCode() + right.hashCode();
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof OpExp) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof OpExp) {
             final OpExp otherExp = (OpExp) other;
-            return (left.equals(otherExp.left) &&
+            return (hash == otherExp.hash &&
+                    left.equals(otherExp.left) &&
                     op.equals(otherExp.op) &&
                     right.equals(otherExp.right));
         } else {
@@ -27,9 +33,7 @@ public class OpExp implements Exp {
     }
 
     public int hashCode() {
-        return (left.hashCode() +
-                op.hashCode() +
-                right.hashCode());
+        return hash;
     }
 
     public String toString() {
@@ -1,19 +1,28 @@
 package com.jamascript.parser.expressions;
 
+import com.jamascript.lexer.SourceSlice;
+
 public class StringLiteralExp implements Exp{
-    public final String value;
+    // shares the token's storage; compared by content
+    public final CharSequence value;
+
+    // hash of the content, computed once
+    private final int hash;
 
-    public StringLiteralExp(final String value) {
+    public StringLiteralExp(final CharSequence value) {
         this.value = value;
+        this.hash = 2 + SourceSlice.contentHash(value);
     }
 
     public boolean equals(final Object other) {
-        return (other instanceof StringLiteralExp &&
-                value == ((StringLiteralExp) other).value);
+        return (this == other ||
+                (other instanceof StringLiteralExp &&
+                 hash == ((StringLiteralExp) other).hash &&
+                 SourceSlice.contentEquals(value, ((StringLiteralExp) other).value)));
     }
 
     public int hashCode() {
-        return 2;
+        return hash;
     }
 
     public String toString() {
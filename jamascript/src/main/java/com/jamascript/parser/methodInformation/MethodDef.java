@@ -1,4 +1,6 @@
 package com.jamascript.parser.methodInformation;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.jamascript.parser.Vardec;
@@ -12,27 +14,36 @@ public class MethodDef {
     public final List<Vardec> arguments;
     public final Stmt body;
 
+    // returnType is null for a method declared without one
+    private final int hash;
+
     public MethodDef(final Type returnType,
                 final MethodName mname,
                 final List<Vardec> arguments,
                 final Stmt body) {
         this.returnType = returnType;
         this.mname = mname;
-        this.arguments = arguments;
+        this.arguments = Collections.unmodifiableList(new ArrayList<Vardec>(arguments));
         this.body = body;
+        this.hash = (((returnType == null) ? 0 : returnType.hashCode()) +
+                     mname.hashCode() +
+                     this.arguments.hashCode() +
+                     body.hashCode());
     }
 
     public int hashCode() {
-        return (returnType.hashCode() +
-                mname.hashCode() +
-                arguments.hashCode() +
-                body.hashCode());
+        return hash;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof MethodDef) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof MethodDef) {
             final MethodDef otherDef = (MethodDef)other;
-            return (returnType.equals(otherDef.returnType) &&
+            return (hash == otherDef.hash &&
+                    ((returnType == null) ?
+                     otherDef.returnType == null :
+                     returnType.equals(otherDef.returnType)) &&
                     mname.equals(otherDef.mname) &&
                     arguments.equals(otherDef.arguments) &&
                     body.equals(otherDef.body));
@@ -42,7 +53,7 @@ public class MethodDef {
     }
 
     public String toString() {
-        return ("Mdef(" + returnType.toString() + ", " +
+        return ("Mdef(" + returnType + ", " +
                 mname.toString() + ", " +
                 arguments.toString() + ", " +
                 body.toString() + ")");
@@ -1,19 +1,29 @@
 package com.jamascript.parser.methodInformation;
 
+import com.jamascript.lexer.SymbolTable;
+
 public class MethodName {
     public final String name;
 
+    public final int id;
+
     public MethodName(final String name) {
         this.name = name;
+        this.id = SymbolTable.global().intern(name);
+    }
+
+    public MethodName(final int id) {
+        this.name = SymbolTable.global().name(id);
+        this.id = id;
     }
 
     public int hashCode() {
-        return name.hashCode();
+        return id;
     }
 
     public boolean equals(final Object other) {
         return (other instanceof MethodName &&
-                name.equals(((MethodName)other).name));
+                id == ((MethodName)other).id);
     }
     
     public String toString() {
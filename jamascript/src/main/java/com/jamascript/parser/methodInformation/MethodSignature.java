@@ -30,12 +30,12 @@ public class MethodSignature {
     // }
 
     public int hashCode() {
-        return methodName.name.hashCode() + params.hashCode();
+        return methodName.hashCode() + params.hashCode();
     }
 
     public boolean equals(final Object other) {
         return (other instanceof MethodSignature &&
-                methodName.name.equals(((MethodSignature)other).methodName.name) &&
+                methodName.equals(((MethodSignature)other).methodName) &&
                 params.equals(((MethodSignature)other).params));
     }
 
@@ -1,17 +1,31 @@
 package com.jamascript.parser.statements;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class BlockStmt implements Stmt {
     public final List<Stmt> stmts;
 
+    private final int hash;
+
     public BlockStmt(final List<Stmt> stmts) {
-        this.stmts = stmts;
+        this.stmts = Collections.unmodifiableList(new ArrayList<Stmt>(stmts));
+        int hashC = 0;
+        for(int i = 0; i < this.stmts.size(); i++) {
+            hashC += this.stmts.get(i).hashCode();
+        }
+        this.hash = hashC;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof BlockStmt) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof BlockStmt) {
             final BlockStmt otherStmt = (BlockStmt) other;
+            if (hash != otherStmt.hash) {
+                return false;
+            }
 
             // if both of their lists are the same size
             if(stmts.size() == otherStmt.stmts.size()) {
@@ -35,12 +49,7 @@ public class BlockStmt implements Stmt {
     }
 
     public int hashCode() {
-        int hashC = 0;
-        for(int i = 0; i < stmts.size(); i++) {
-            hashC += stmts.get(i).hashCode();
-        }
-
-        return hashC;
+        return hash;
     }
 
     public String toString() {
@@ -5,15 +5,22 @@ import com.jamascript.parser.expressions.*;
 public class ExpStmt implements Stmt{
     public final Exp exp;
 
+    private final int hash;
+
     public ExpStmt(final Exp exp) {
         this.exp = exp;
+        this.hash = exp.hashCode();
     }
 
-    public int hashCode() { return exp.hashCode(); }
+    public int hashCode() {
+        return hash;
+    }
 
     public boolean equals(final Object other) {
-        return (other instanceof ExpStmt &&
-                exp.equals(((ExpStmt)other).exp));
+        return (this == other ||
+                (other instanceof ExpStmt &&
+                 hash == ((ExpStmt)other).hash &&
+                 exp.equals(((ExpStmt)other).exp)));
     }
 
     public String toString() {
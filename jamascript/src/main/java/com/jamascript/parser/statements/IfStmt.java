@@ -6,18 +6,24 @@ public class IfStmt implements Stmt {
     public final Stmt trueBranch;
     public final Stmt falseBranch;
 
+    private final int hash;
+
     public IfStmt(final Exp guard,
             final Stmt trueBranch,
             final Stmt falseBranch) {
         this.guard = guard;
         this.trueBranch = trueBranch;
         this.falseBranch = falseBranch;
+        this.hash = guard.hashCode() + trueBranch.hashCode() + falseBranch.hashCode();
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof IfStmt) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof IfStmt) {
             final IfStmt otherStmt = (IfStmt) other;
-            return (guard.equals(otherStmt.guard) &&
+            return (hash == otherStmt.hash &&
+                    guard.equals(otherStmt.guard) &&
                     trueBranch.equals(otherStmt.trueBranch) &&
                     falseBranch.equals(otherStmt.falseBranch));
         } else {
@@ -26,9 +32,7 @@ public class IfStmt implements Stmt {
     }
 
     public int hashCode() {
-        return (guard.hashCode() +
-                trueBranch.hashCode() +
-                falseBranch.hashCode());
+        return hash;
     }
 
     public String toString() {
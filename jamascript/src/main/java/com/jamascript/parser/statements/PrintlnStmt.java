@@ -4,17 +4,22 @@ import com.jamascript.parser.expressions.*;
 public class PrintlnStmt implements Stmt{
     public final Exp exp;
 
+    private final int hash;
+
     public PrintlnStmt(final Exp exp) {
         this.exp = exp;
+        this.hash = exp.hashCode();
     }
 
     public int hashCode() {
-        return exp.hashCode();
+        return hash;
     }
     
     public boolean equals(final Object other) {
-        return (other instanceof PrintlnStmt &&
-                exp.equals(((PrintlnStmt)other).exp));
+        return (this == other ||
+                (other instanceof PrintlnStmt &&
+                 hash == ((PrintlnStmt)other).hash &&
+                 exp.equals(((PrintlnStmt)other).exp)));
     }
 
     public String toString() {
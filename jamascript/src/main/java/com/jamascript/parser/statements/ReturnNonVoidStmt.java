@@ -4,15 +4,22 @@ import com.jamascript.parser.expressions.*;
 public class ReturnNonVoidStmt implements Stmt {
     public final Exp exp;
 
+    private final int hash;
+
     public ReturnNonVoidStmt(final Exp exp) {
         this.exp = exp;
+        this.hash = exp.hashCode();
     }
 
-    public int hashCode() { return exp.hashCode(); }
+    public int hashCode() {
+        return hash;
+    }
 
     public boolean equals(final Object other) {
-        return (other instanceof ReturnNonVoidStmt &&
-                exp.equals(((ReturnNonVoidStmt)other).exp));
+        return (this == other ||
+                (other instanceof ReturnNonVoidStmt &&
+                 hash == ((ReturnNonVoidStmt)other).hash &&
+                 exp.equals(((ReturnNonVoidStmt)other).exp)));
     }
 
     public String toString() {
@@ -6,21 +6,27 @@ public class VariableInitializationStmt implements Stmt {
     public final Vardec vardec;
     public final Exp exp;
 
+    private final int hash;
+
     public VariableInitializationStmt(final Vardec vardec,
                                       final Exp exp) {
         this.vardec = vardec;
         this.exp = exp;
+        this.hash = vardec.hashCode() + exp.hashCode();
     }
 
     public int hashCode() {
-        return vardec.hashCode() + exp.hashCode();
+        return hash;
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof VariableInitializationStmt) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof VariableInitializationStmt) {
             final VariableInitializationStmt otherVar =
                 (VariableInitializationStmt)other;
-            return (vardec.equals(otherVar.vardec) &&
+            return (hash == otherVar.hash &&
+                    vardec.equals(otherVar.vardec) &&
                     exp.equals(otherVar.exp));
         } else {
             return false;
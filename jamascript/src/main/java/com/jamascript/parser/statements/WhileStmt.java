@@ -5,20 +5,26 @@ public class WhileStmt implements Stmt {
     public final Exp guard;
     public final Stmt body;
 
+    private final int hash;
+
     public WhileStmt(final Exp guard,
                      final Stmt body) {
         this.guard = guard;
         this.body = body;
+        this.hash = guard.hashCode() + body.hashCode();
     }
 
     public int hashCode() {
-        return guard.hashCode() + body.hashCode();
+        return hash;
     }
     
     public boolean equals(final Object other) {
-        if (other instanceof WhileStmt) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof WhileStmt) {
             final WhileStmt otherWhile = (WhileStmt)other;
-            return (guard.equals(otherWhile.guard) &&
+            return (hash == otherWhile.hash &&
+                    guard.equals(otherWhile.guard) &&
                     body.equals(otherWhile.body));
         } else {
             return false;
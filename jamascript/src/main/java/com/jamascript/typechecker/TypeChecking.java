@@ -1,5 +1,7 @@
 package com.jamascript.typechecker;
 
+import com.jamascript.lexer.LineIndex;
+import com.jamascript.lexer.Span;
 import com.jamascript.parser.*;
 import com.jamascript.parser.expressions.*;
 import com.jamascript.parser.methodInformation.MethodDef;
@@ -25,6 +27,12 @@ public class TypeChecking {
 
     public final Map<ClassName, Map<MethodSignature, MethodDef>> methods;
 
+    // where the program's nodes came from, to locate errors; may be null
+    private final SourceSpans spans;
+
+    // source lines, for locations in error messages; may be null
+    private final LineIndex lines;
+
     public static ClassDef getClass(final ClassName className,
             final Map<ClassName, ClassDef> classes) throws TypeErrorException {
         if (className.name.equals(BASE_CLASS_NAME)) {
@@ -89,7 +97,8 @@ public class TypeChecking {
                     new MethodSignature(methodDef.mname, getMethodDefArgumentTypes(methodDef));
 
                 if (methodsSigOnThisClass.contains(methodSignature)) {
-                    throw new TypeErrorException("duplicate method signature: " + methodSignature);
+                    throw located(new TypeErrorException("duplicate method signature: " + methodSignature),
+                                  methodDef);
                 }
                 methodsSigOnThisClass.add(methodSignature);
             
@@ -111,20 +120,54 @@ public class TypeChecking {
 
     // also makes sure inheritance hierarchies aren't cyclical
     public static Map<ClassName, ClassDef> makeClassMap(final List<ClassDef> classes) throws TypeErrorException {
+        return makeClassMap(classes, null, null);
+    }
+
+    private static Map<ClassName, ClassDef> makeClassMap(final List<ClassDef> classes,
+            final SourceSpans spans,
+            final LineIndex lines) throws TypeErrorException {
         final Map<ClassName, ClassDef> retval = new HashMap<ClassName, ClassDef>();
         for (final ClassDef classDef : classes) {
             final ClassName className = classDef.className;
             if (retval.containsKey(classDef.className)) {
-                throw new TypeErrorException("Duplicate class name: " + className);
+                throw located(new TypeErrorException("Duplicate class name: " + className),
+                              classDef, spans, lines);
             }
             retval.put(className, classDef);
         }
 
-        assertInheritanceNonCyclical(retval);
+        for (final ClassDef classDef : classes) {
+            try {
+                assertInheritanceNonCyclicalForClass(classDef, retval);
+            } catch (final TypeErrorException e) {
+                throw located(e, classDef, spans, lines);
+            }
+        }
 
         return retval;
     }
 
+    // e, placed at node if it has no place yet and node's is known
+    private static TypeErrorException located(final TypeErrorException e,
+            final Object node,
+            final SourceSpans spans,
+            final LineIndex lines) {
+        if (spans == null || Span.isKnown(e.span)) {
+            return e;
+        }
+        final long span = spans.get(node);
+        if (!Span.isKnown(span)) {
+            return e;
+        }
+        final TypeErrorException placed = new TypeErrorException(e.getMessage(), span, lines);
+        placed.setStackTrace(e.getStackTrace());
+        return placed;
+    }
+
+    private TypeErrorException located(final TypeErrorException e, final Object node) {
+        return located(e, node, spans, lines);
+    }
+
     public List<Type> expectedConstructorTypesForClass(final ClassName className)
         throws TypeErrorException {
         final ClassDef classDef = getClass(className);
@@ -206,8 +249,19 @@ public class TypeChecking {
     }
 
     public TypeChecking(final Program program) throws TypeErrorException {
+        this(program, null, null);
+    }
+
+    // With spans from the Parser that built program (see
+    // Parser.setSourceSpans), errors carry the span of the innermost
+    // node they were found in, and lines turns it into a line and column
+    public TypeChecking(final Program program,
+                        final SourceSpans spans,
+                        final LineIndex lines) throws TypeErrorException {
         this.program = program;
-        classes = makeClassMap(program.classes);
+        this.spans = spans;
+        this.lines = lines;
+        classes = makeClassMap(program.classes, spans, lines);
         methods = makeMethodMap(classes);
     }
 
@@ -216,6 +270,17 @@ public class TypeChecking {
             final Map<Variable, Type> typeEnvironment,
             final ClassName classWeAreIn)
             throws TypeErrorException {
+        try {
+            return typeofExpUnlocated(exp, typeEnvironment, classWeAreIn);
+        } catch (final TypeErrorException e) {
+            throw located(e, exp);
+        }
+    }
+
+    private Type typeofExpUnlocated(final Exp exp,
+            final Map<Variable, Type> typeEnvironment,
+            final ClassName classWeAreIn)
+            throws TypeErrorException {
         if (exp instanceof VariableExp) {
             return typeofVariable((VariableExp) exp, typeEnvironment);
         } else if (exp instanceof IntegerLiteralExp) {
@@ -360,6 +425,17 @@ public class TypeChecking {
             final Map<Variable, Type> typeEnvironment,
             final ClassName classWeAreIn,
             final Type functionReturnType) throws TypeErrorException {
+        try {
+            return returnEnvOfStmtUnlocated(stmt, typeEnvironment, classWeAreIn, functionReturnType);
+        } catch (final TypeErrorException e) {
+            throw located(e, stmt);
+        }
+    }
+
+    private Map<Variable, Type> returnEnvOfStmtUnlocated(final Stmt stmt,
+            final Map<Variable, Type> typeEnvironment,
+            final ClassName classWeAreIn,
+            final Type functionReturnType) throws TypeErrorException {
         if (stmt instanceof VariableInitializationStmt) {
             return returnEnvOfVarInit((VariableInitializationStmt) stmt,
                     typeEnvironment, classWeAreIn);
@@ -1,7 +1,30 @@
 package com.jamascript.typechecker;
 
+import com.jamascript.lexer.LineIndex;
+import com.jamascript.lexer.Span;
+
 public class TypeErrorException extends Exception {
+    // packed source span of the node the error is about, or Span.NONE
+    public final long span;
+
+    // used to turn span into a line and column; may be null
+    private final LineIndex lines;
+
     public TypeErrorException(final String message) {
+        this(message, Span.NONE, null);
+    }
+
+    public TypeErrorException(final String message, final long span, final LineIndex lines) {
         super(message);
+        this.span = span;
+        this.lines = lines;
+    }
+
+    public String getMessage() {
+        if (lines != null && Span.isKnown(span)) {
+            return super.getMessage() + " at " + lines.describe(span);
+        } else {
+            return super.getMessage();
+        }
     }
-}
\ No newline at end of file
+}
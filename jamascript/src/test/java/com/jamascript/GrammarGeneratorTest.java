@@ -0,0 +1,116 @@
+package com.jamascript;
+
+import com.jamascript.build.GrammarGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class GrammarGeneratorTest {
+        // the textbook expression grammar, without left recursion
+        public static final String EXPRESSIONS =
+                "# sums of products\n" +
+                "e  = t e2 @e ;\n" +
+                "e2 = PLUS t e2 @plus\n" +
+                "   | @done ;\n" +
+                "t  = f t2 @t ;\n" +
+                "t2 = MULTIPLY f t2 @times\n" +
+                "   | @done ;\n" +
+                "f  = LEFT_PARENTHESIS e RIGHT_PARENTHESIS @parenthesized\n" +
+                "   | NUMBER @number ;\n";
+
+        public static Set<String> set(final String... symbols) {
+                return new HashSet<String>(Arrays.asList(symbols));
+        }
+
+        public static void assertRejected(final String grammar, final String message) {
+                try {
+                        new GrammarGenerator(grammar).generate("test.grammar");
+                        fail("accepted " + grammar);
+                } catch (final IllegalArgumentException e) {
+                        assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+                }
+        }
+
+        @Test
+        public void testFirstSets() {
+                final GrammarGenerator generator = new GrammarGenerator(EXPRESSIONS);
+                assertEquals(set("LEFT_PARENTHESIS", "NUMBER"), generator.first("e"));
+                assertEquals(set("LEFT_PARENTHESIS", "NUMBER"), generator.first("t"));
+                assertEquals(set("PLUS"), generator.first("e2"));
+                assertEquals(set("MULTIPLY"), generator.first("t2"));
+        }
+
+        @Test
+        public void testNullable() {
+                final GrammarGenerator generator = new GrammarGenerator(EXPRESSIONS);
+                assertTrue(generator.isNullable("e2"));
+                assertTrue(generator.isNullable("t2"));
+                assertFalse(generator.isNullable("e"));
+                assertFalse(generator.isNullable("f"));
+        }
+
+        @Test
+        public void testFollowSets() {
+                final GrammarGenerator generator = new GrammarGenerator(EXPRESSIONS);
+                assertEquals(set("$", "RIGHT_PARENTHESIS"), generator.follow("e"));
+                assertEquals(set("$", "RIGHT_PARENTHESIS"), generator.follow("e2"));
+                assertEquals(set("PLUS", "$", "RIGHT_PARENTHESIS"), generator.follow("t"));
+                assertEquals(set("MULTIPLY", "PLUS", "$", "RIGHT_PARENTHESIS"), generator.follow("f"));
+        }
+
+        // an empty alternative is chosen by what may follow the rule
+        @Test
+        public void testPredictions() {
+                final Map<String, String> expected = new LinkedHashMap<String, String>();
+                expected.put("PLUS", "plus");
+                expected.put("$", "done");
+                expected.put("RIGHT_PARENTHESIS", "done");
+                assertEquals(expected, new GrammarGenerator(EXPRESSIONS).predict("e2"));
+        }
+
+        @Test
+        public void testFirstConflict() {
+                assertRejected("s = NUMBER @one | NUMBER PLUS NUMBER @sum ;",
+                               "grammar is not LL(1): NUMBER selects both s @one and @sum");
+        }
+
+        // x may be empty, and then NUMBER both starts and follows it
+        @Test
+        public void testFirstFollowConflict() {
+                assertRejected("s = x NUMBER @s ;\n" +
+                               "x = NUMBER @number | @none ;",
+                               "grammar is not LL(1): NUMBER selects both x @number and @none");
+        }
+
+        @Test
+        public void testMalformedGrammars() {
+                assertRejected("s = y @s ;", "undefined nonterminal: y");
+                assertRejected("s = NUMBER ;", "alternative without a label in s");
+                assertRejected("s NUMBER @s ;", "expected `=` in rule");
+                assertRejected("s = NUMBER @s ; s = PLUS @t ;", "bad or repeated rule name: s");
+                assertRejected("s = NUMBER @s PLUS ;", "symbols after @s in s");
+        }
+
+        @Test
+        public void testJamaScriptGrammar() throws IOException {
+                final GrammarGenerator generator = new GrammarGenerator(
+                        new String(Files.readAllBytes(Paths.get("src/main/grammar/jamascript.grammar")),
+                                   StandardCharsets.UTF_8));
+                assertTrue(generator.generate("jamascript.grammar").contains("final class GrammarTables"));
+                assertEquals(set("CONSTRUCTOR"), generator.follow("fields"));
+                assertEquals("done", generator.predict("methoddefs").get("RIGHT_CURLY_BRACKET"));
+        }
+}
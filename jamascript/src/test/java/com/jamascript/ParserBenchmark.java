@@ -0,0 +1,277 @@
+package com.jamascript;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jamascript.lexer.*;
+import com.jamascript.parser.*;
+import com.jamascript.parser.classInformation.ClassDef;
+import com.jamascript.parser.expressions.IntegerLiteralExp;
+import com.jamascript.parser.statements.PrintlnStmt;
+
+// Not a unit test: run by hand after `mvn test-compile` with
+//   java -cp target/classes:target/test-classes com.jamascript.ParserBenchmark
+// Reports time and bytes allocated per operation, read from the JVM's
+// per-thread allocation counter (the same numbers JMH's gc profiler shows).
+public class ParserBenchmark {
+    public static final int CLASSES = 2000;
+    public static final int CHAIN_TERMS = 100000;
+    public static final int WARMUP_RUNS = 5;
+    public static final int MEASURED_RUNS = 10;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Tokens of one generated class, shaped like:
+    // class CarN extends Object {
+    //     Int speed;
+    //     Boolean running;
+    //     constructor(Int initialSpeed, Boolean isRunning) {
+    //         super(initialSpeed, isRunning);
+    //         Int limit = N;
+    //         println(limit);
+    //     }
+    //     Int accelerate(Int amount) {
+    //         while (running) { println(amount); }
+    //         if (speed >= 120) { println(speed); } else { println(limit); }
+    //         return (speed);
+    //     }
+    // }
+    public static void addClassTokens(final List<Token> tokens, final int number) {
+        tokens.add(new ClassToken());
+        tokens.add(new ClassNameToken("Car" + number));
+        tokens.add(new ExtendsToken());
+        tokens.add(new ClassNameToken("Object"));
+        tokens.add(new LeftCurlyBracketToken());
+
+        tokens.add(new IntToken());
+        tokens.add(new VariableToken("speed"));
+        tokens.add(new SemicolonToken());
+        tokens.add(new BooleanToken());
+        tokens.add(new VariableToken("running"));
+        tokens.add(new SemicolonToken());
+
+        tokens.add(new ConstructorToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new IntToken());
+        tokens.add(new VariableToken("initialSpeed"));
+        tokens.add(new CommaToken());
+        tokens.add(new BooleanToken());
+        tokens.add(new VariableToken("isRunning"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new LeftCurlyBracketToken());
+
+        tokens.add(new SuperToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("initialSpeed"));
+        tokens.add(new CommaToken());
+        tokens.add(new VariableToken("isRunning"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new SemicolonToken());
+
+        tokens.add(new IntToken());
+        tokens.add(new VariableToken("limit"));
+        tokens.add(new EqualToken());
+        tokens.add(new NumberToken(number));
+        tokens.add(new SemicolonToken());
+
+        tokens.add(new PrintlnToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("limit"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new SemicolonToken());
+        tokens.add(new RightCurlyBracketToken());
+
+        tokens.add(new IntToken());
+        tokens.add(new MethodNameToken("accelerate"));
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new IntToken());
+        tokens.add(new VariableToken("amount"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new LeftCurlyBracketToken());
+
+        tokens.add(new WhileToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("running"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new LeftCurlyBracketToken());
+        tokens.add(new PrintlnToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("amount"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new SemicolonToken());
+        tokens.add(new RightCurlyBracketToken());
+
+        tokens.add(new IfToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("speed"));
+        tokens.add(new GreaterThanEqualToken());
+        tokens.add(new NumberToken(120));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new LeftCurlyBracketToken());
+        tokens.add(new PrintlnToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("speed"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new SemicolonToken());
+        tokens.add(new RightCurlyBracketToken());
+        tokens.add(new ElseToken());
+        tokens.add(new LeftCurlyBracketToken());
+        tokens.add(new PrintlnToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("limit"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new SemicolonToken());
+        tokens.add(new RightCurlyBracketToken());
+
+        tokens.add(new ReturnToken());
+        tokens.add(new LeftParenthesisToken());
+        tokens.add(new VariableToken("speed"));
+        tokens.add(new RightParenthesisToken());
+        tokens.add(new SemicolonToken());
+        tokens.add(new RightCurlyBracketToken());
+
+        tokens.add(new RightCurlyBracketToken());
+    }
+
+    public static List<Token> generateClasses(final int classes) {
+        final List<Token> tokens = new ArrayList<Token>();
+        for (int number = 0; number < classes; number++) {
+            addClassTokens(tokens, number);
+        }
+        return tokens;
+    }
+
+    public interface Operation {
+        // returns something derived from the work so it can't be optimized away
+        public int run() throws Exception;
+    }
+
+    public static void measure(final String label, final int operations, final Operation operation)
+            throws Exception {
+        int sink = 0;
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            sink += operation.run();
+        }
+
+        long bestTime = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            final long bytesBefore = allocatedBytes();
+            final long start = System.nanoTime();
+            sink += operation.run();
+            bestTime = Math.min(bestTime, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes, allocatedBytes() - bytesBefore);
+        }
+
+        System.out.printf("%s: %.2f ns/op, %.1f bytes/op (%d)%n",
+                label, (double) bestTime / operations, (double) bestBytes / operations, sink);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final TokenBuffer classTokens = TokenBuffer.fromTokens(generateClasses(CLASSES));
+        measure("parseClassDefs, per class", CLASSES, new Operation() {
+            public int run() throws Exception {
+                final Parser parser = new Parser(classTokens);
+                return parser.parseClassDefs(0).result.size();
+            }
+        });
+
+        // the same without ParseResults: only the AST is allocated
+        measure("readClassDefs, per class", CLASSES, new Operation() {
+            public int run() throws Exception {
+                return new Parser(classTokens).readClassDefs().size();
+            }
+        });
+
+        // hash-consed: the repeated parts of each class are shared, so
+        // less of what is allocated stays live
+        measure("readClassDefs hash-consed, per class", CLASSES, new Operation() {
+            public int run() throws Exception {
+                final Parser parser = new Parser(classTokens);
+                final NodeFactory factory = new NodeFactory();
+                parser.setNodeFactory(factory);
+                return parser.readClassDefs().size() + factory.size();
+            }
+        });
+
+        // equals between two separate parses, then between hash-consed
+        // parses sharing one factory, which is down to identity checks
+        final List<ClassDef> first = new Parser(classTokens).readClassDefs();
+        final List<ClassDef> second = new Parser(classTokens).readClassDefs();
+        measure("equals, per class", CLASSES, new Operation() {
+            public int run() throws Exception {
+                return first.equals(second) ? 1 : 0;
+            }
+        });
+        final NodeFactory factory = new NodeFactory();
+        final Parser firstParser = new Parser(classTokens);
+        firstParser.setNodeFactory(factory);
+        final List<ClassDef> firstShared = firstParser.readClassDefs();
+        final Parser secondParser = new Parser(classTokens);
+        secondParser.setNodeFactory(factory);
+        final List<ClassDef> secondShared = secondParser.readClassDefs();
+        measure("equals hash-consed, per class", CLASSES, new Operation() {
+            public int run() throws Exception {
+                return firstShared.equals(secondShared) ? 1 : 0;
+            }
+        });
+
+        // the same classes as an arena sized to fit: bytes per class are
+        // its footprint, against the object AST readClassDefs allocates
+        final Program program = new Program(new Parser(classTokens).readClassDefs(),
+                                            new PrintlnStmt(new IntegerLiteralExp(0)));
+        final AstArena arena = AstConverter.toArena(program);
+        measure("toArena, per class", CLASSES, new Operation() {
+            public int run() throws Exception {
+                return AstConverter.add(new AstArena(arena.size()), program);
+            }
+        });
+
+        measure("arena scan for println, per class", CLASSES, new Operation() {
+            public int run() throws Exception {
+                int printlns = 0;
+                for (int node = 0; node < arena.size(); node++) {
+                    if (arena.kind(node) == AstArena.PRINTLN_STMT) {
+                        printlns++;
+                    }
+                }
+                return printlns;
+            }
+        });
+
+        // generated arithmetic: 0 + 1 * 2 - 3 / 4 < ... with every operator
+        final StringBuilder chain = new StringBuilder("0");
+        final String[] operators = { " + ", " * ", " - ", " / ", " < ", " == " };
+        for (int term = 1; term < CHAIN_TERMS; term++) {
+            chain.append(operators[term % operators.length]).append(term);
+        }
+        final TokenBuffer chainTokens = new Tokenizer(chain.toString()).tokenizeBuffer();
+        measure("parseExpOpExp, per term", CHAIN_TERMS, new Operation() {
+            public int run() throws Exception {
+                return new Parser(chainTokens).parseExpOpExp(0).position;
+            }
+        });
+
+        // the cost of reporting one error, message included
+        final TokenBuffer broken = new Tokenizer("println(;").tokenizeBuffer();
+        measure("parse error, per error", CLASSES, new Operation() {
+            public int run() throws Exception {
+                int length = 0;
+                for (int error = 0; error < CLASSES; error++) {
+                    try {
+                        new Parser(broken).parseStmt(0);
+                    } catch (final ParseException e) {
+                        length += e.getMessage().length();
+                    }
+                }
+                return length;
+            }
+        });
+    }
+}
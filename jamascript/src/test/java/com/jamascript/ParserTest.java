@@ -10,6 +10,8 @@ import com.jamascript.typechecker.types.*;
 import com.jamascript.parser.classInformation.*;
 import com.jamascript.parser.methodInformation.MethodDef;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -222,31 +224,9 @@ public class ParserTest {
                                 parser.parseExpOpExp(0));
         }
 
-        // will only work if we have operator precedence
-        // @Test
-        // public void testLessThanMixedOperator() throws ParseException {
-        // // 1 < 2 + 3 ==> 1 < (2 + 3)
-
-        // List<Token> tokens = new ArrayList<Token>();
-        // tokens.add(new NumberToken("1"));
-        // tokens.add(new LessThanToken());
-        // tokens.add(new NumberToken("2"));
-        // tokens.add(new PlusToken());
-        // tokens.add(new NumberToken("3"));
-
-        // final Parser parser = new Parser(tokens);
-        // final Exp expected = new OpExp(new IntegerLiteralExp(1),
-        // new LessThanOp(),
-        // new OpExp(new IntegerLiteralExp(2),
-        // new PlusOp(),
-        // new IntegerLiteralExp(3)));
-        // assertEquals(new ParseResult<Exp>(expected, 5),
-        // parser.parseExpOpExp(0));
-        // }
-
         @Test
         public void testLessThanMixedOperator_modified() throws ParseException {
-                // 1 < 2 + 3 ==> (1 < 2) + 3
+                // 1 < 2 + 3 ==> 1 < (2 + 3)
 
                 List<Token> tokens = new ArrayList<Token>();
                 tokens.add(new NumberToken("1"));
@@ -256,14 +236,106 @@ public class ParserTest {
                 tokens.add(new NumberToken("3"));
 
                 final Parser parser = new Parser(tokens);
+                final Exp expected = new OpExp(new IntegerLiteralExp(1),
+                                new LessThanOp(),
+                                new OpExp(new IntegerLiteralExp(2),
+                                                new PlusOp(),
+                                                new IntegerLiteralExp(3)));
+                assertEquals(new ParseResult<Exp>(expected, 5),
+                                parser.parseExpOpExp(0));
+        }
+
+        public ParseResult<Exp> parseExpSource(final String source) throws ParseException, TokenizerException {
+                return new Parser(new Tokenizer(source).tokenizeProgramBuffer()).parseExpOpExp(0);
+        }
+
+        @Test
+        public void testPrecedence() throws ParseException, TokenizerException {
+                // 1 + 2 * 3 - 8 / 4 == 5 ==> ((1 + (2 * 3)) - (8 / 4)) == 5
                 final Exp expected = new OpExp(
-                                new OpExp(new IntegerLiteralExp(1),
-                                                new LessThanOp(),
-                                                new IntegerLiteralExp(2)),
+                                new OpExp(new OpExp(new IntegerLiteralExp(1),
+                                                new PlusOp(),
+                                                new OpExp(new IntegerLiteralExp(2),
+                                                                new MultiplyOp(),
+                                                                new IntegerLiteralExp(3))),
+                                                new MinusOp(),
+                                                new OpExp(new IntegerLiteralExp(8),
+                                                                new DivideOp(),
+                                                                new IntegerLiteralExp(4))),
+                                new EqualsEqualsOp(),
+                                new IntegerLiteralExp(5));
+                assertEquals(new ParseResult<Exp>(expected, 11),
+                                parseExpSource("1 + 2 * 3 - 8 / 4 == 5"));
+        }
+
+        @Test
+        public void testParenthesizedExp() throws ParseException, TokenizerException {
+                // (1 + 2) * 3
+                final Exp expected = new OpExp(new OpExp(new IntegerLiteralExp(1),
                                 new PlusOp(),
+                                new IntegerLiteralExp(2)),
+                                new MultiplyOp(),
                                 new IntegerLiteralExp(3));
-                assertEquals(new ParseResult<Exp>(expected, 5),
-                                parser.parseExpOpExp(0));
+                assertEquals(new ParseResult<Exp>(expected, 7),
+                                parseExpSource("(1 + 2) * 3"));
+        }
+
+        @Test
+        public void testNewAndCallsInExp() throws ParseException, TokenizerException {
+                // new Dog(1, x + 1).bark().fetch(2) < 3
+                final List<Exp> newParams = new ArrayList<Exp>();
+                newParams.add(new IntegerLiteralExp(1));
+                newParams.add(new OpExp(new VariableExp(new Variable("x")),
+                                new PlusOp(),
+                                new IntegerLiteralExp(1)));
+                final Exp bark = new MethodCallExp(new NewExp(new ClassName("Dog"), newParams),
+                                new MethodName("bark"),
+                                new ArrayList<Exp>());
+                final List<Exp> fetchParams = new ArrayList<Exp>();
+                fetchParams.add(new IntegerLiteralExp(2));
+                final Exp expected = new OpExp(
+                                new MethodCallExp(bark, new MethodName("fetch"), fetchParams),
+                                new LessThanOp(),
+                                new IntegerLiteralExp(3));
+                assertEquals(new ParseResult<Exp>(expected, 20),
+                                parseExpSource("new Dog(1, x + 1).bark().fetch(2) < 3"));
+        }
+
+        // an operator without an operand after it is left for the caller
+        @Test
+        public void testTrailingOperatorEndsExp() throws ParseException, TokenizerException {
+                assertEquals(new ParseResult<Exp>(new IntegerLiteralExp(1), 1),
+                                parseExpSource("1 + ;"));
+        }
+
+        // generated code has long chains; they must neither recurse deeply nor backtrack
+        @Test
+        public void testLongChain() throws ParseException, TokenizerException {
+                final StringBuilder source = new StringBuilder("0");
+                for (int term = 1; term <= 20000; term++) {
+                        source.append(term % 2 == 0 ? " + " : " * ").append(term);
+                }
+                final ParseResult<Exp> result = parseExpSource(source.toString());
+                assertEquals(40001, result.position);
+                // (... + 19998 * 19999) + 20000
+                final OpExp top = (OpExp) result.result;
+                assertEquals(new PlusOp(), top.op);
+                assertEquals(new IntegerLiteralExp(20000), top.right);
+        }
+
+        @Test
+        public void testWhileWithComparison() throws ParseException, TokenizerException {
+                final Parser parser = new Parser(new Tokenizer("while (i < 10) { println(i * 2); }")
+                                .tokenizeProgramBuffer());
+                final List<Stmt> body = new ArrayList<Stmt>();
+                body.add(new PrintlnStmt(new OpExp(new VariableExp(new Variable("i")),
+                                new MultiplyOp(),
+                                new IntegerLiteralExp(2))));
+                final Stmt expected = new WhileStmt(new OpExp(new VariableExp(new Variable("i")),
+                                new LessThanOp(),
+                                new IntegerLiteralExp(10)),
+                                new BlockStmt(body));
+                assertEquals(new ParseResult<Stmt>(expected, 14), parser.parseStmt(0));
         }
 
         // if(2>1){println("yup");} else{println("nah");}
@@ -1235,6 +1307,27 @@ public class ParserTest {
                 assertEquals(new ParseResult<ClassDef>(expected, 74), parser.parseClassDef(0));
         }
 
+        // the Car class lexed from source in one pass
+        @Test
+        public void testClassFromSource() throws ParseException, TokenizerException {
+                final String source = "class Car extends Object {\n" +
+                                "    Int a;\n" +
+                                "    String d;\n" +
+                                "    constructor(Int b, Boolean c) {\n" +
+                                "        super(b, c);\n" +
+                                "        println(\"You made it!\");\n" +
+                                "        String hey = \"blah\";\n" +
+                                "    }\n" +
+                                "    Int doSomething(Int e) { println(e); return (e); }\n" +
+                                "    String doSomething2(String e) { println(e); return (e); }\n" +
+                                "}";
+                final TokenBuffer tokens = new Tokenizer(source).tokenizeProgramBuffer();
+                assertEquals(CarClassTokens(), tokens.toList());
+
+                final Parser parser = new Parser(tokens);
+                assertEquals(new ParseResult<ClassDef>(CarClass(), 74), parser.parseClassDef(0));
+        }
+
         @Test
         // test Car Overloaded
         public void testClassOverloaded() throws ParseException {
@@ -1323,6 +1416,329 @@ public class ParserTest {
                                 parser.parseProgram(0));
         }
 
+        // test parsing straight from the lexer's token buffer: println(count);
+        @Test
+        public void testParseFromTokenBuffer() throws ParseException, TokenizerException {
+                final TokenBuffer tokens = new Tokenizer("println(count);").tokenizeBuffer();
+                final Parser parser = new Parser(tokens);
+
+                final Stmt expected = new PrintlnStmt(new VariableExp(new Variable("count")));
+
+                assertEquals(new ParseResult<Stmt>(expected, 4),
+                                parser.parseStmt(0));
+        }
+
+        // String greeting = "hello";
+        @Test
+        public void testParseLexedString() throws ParseException, TokenizerException {
+                final Parser parser = new Parser(new Tokenizer("String greeting = \"hello\";").tokenizeBuffer());
+
+                final Stmt expected = new VariableInitializationStmt(
+                                new Vardec(new StringType(), new Variable("greeting")),
+                                new StringLiteralExp("hello"));
+
+                assertEquals(new ParseResult<Stmt>(expected, 4),
+                                parser.parseVarInit(0));
+        }
+
+        @Test
+        public void testErrorLocation() throws TokenizerException {
+                final String source = "println(count);\nprintln(;";
+                final Parser parser = new Parser(new Tokenizer(source).tokenizeBuffer(),
+                                new LineIndex(source));
+                try {
+                        parser.parseStmt(5);
+                } catch (final ParseException e) {
+                        assertEquals(Span.pack(24, 1), e.span);
+                        assertEquals("Expected: expression token; received: ; at 2:9",
+                                        e.getMessage());
+                        return;
+                }
+                fail("expected a ParseException");
+        }
+
+        // spans run from a node's first token to its last
+        @Test
+        public void testSourceSpans() throws ParseException, TokenizerException {
+                final String source = "while (a < 10) {\n  println(a.size());\n}";
+                final Parser parser = new Parser(new Tokenizer(source).tokenizeProgramBuffer());
+                final SourceSpans spans = new SourceSpans();
+                parser.setSourceSpans(spans);
+                final WhileStmt stmt = (WhileStmt) parser.parseStmt(0).result;
+
+                assertEquals(Span.pack(0, source.length()), spans.get(stmt));
+                assertEquals(Span.pack(source.indexOf("a < 10"), 6), spans.get(stmt.guard));
+                final PrintlnStmt println = (PrintlnStmt) ((BlockStmt) stmt.body).stmts.get(0);
+                assertEquals(Span.pack(source.indexOf("println"), 18), spans.get(println));
+                assertEquals(Span.pack(source.indexOf("a.size()"), 8), spans.get(println.exp));
+                assertEquals(Span.NONE, spans.get(new PrintlnStmt(println.exp)));
+        }
+
+        public String carProgram(final int classes) {
+                final StringBuilder source = new StringBuilder();
+                for (int count = 0; count < classes; count++) {
+                        source.append("class Car extends Object {\n" +
+                                        "    Int a;\n" +
+                                        "    constructor(Int b) { super(b); }\n" +
+                                        "    Int go(Int e) { println(e); return (e); }\n" +
+                                        "}\n");
+                }
+                return source.append("println(\"done\");").toString();
+        }
+
+        // a streamed source only holds the class being parsed
+        @Test
+        public void testParseFromLazySource() throws ParseException, TokenizerException {
+                final String source = carProgram(500);
+                final ParseResult<Program> expected = new Parser(new Tokenizer(source).tokenizeProgramBuffer())
+                                .parseProgram(0);
+
+                final LazyTokenSource tokens = new LazyTokenSource(new Tokenizer(source), true);
+                assertEquals(expected, new Parser(tokens).parseProgram(0));
+                assertEquals(500, expected.result.classes.size());
+                assertTrue(tokens.capacity() <= 128);
+        }
+
+        @Test
+        public void testParseFromPipelinedSource() throws ParseException, TokenizerException {
+                final String source = carProgram(500);
+                final ParseResult<Program> expected = new Parser(new Tokenizer(source).tokenizeProgramBuffer())
+                                .parseProgram(0);
+
+                final PipelinedTokenSource tokens = new PipelinedTokenSource(new Tokenizer(source), true);
+                try {
+                        assertEquals(expected, new Parser(tokens).parseProgram(0));
+                } finally {
+                        tokens.close();
+                }
+        }
+
+        @Test
+        public void testParseExceptionIsStackless() throws TokenizerException {
+                try {
+                        new Parser(new Tokenizer("println(;").tokenizeBuffer()).parseStmt(0);
+                } catch (final ParseException e) {
+                        assertEquals(0, e.getStackTrace().length);
+                        return;
+                }
+                fail("expected a ParseException");
+        }
+
+        // a broken class is reported where it breaks, not as a missing statement
+        @Test
+        public void testErrorInsideClass() throws TokenizerException {
+                final String source = carProgram(2).replace("println(e);", "println(e)");
+                final Parser parser = new Parser(new Tokenizer(source).tokenizeProgramBuffer(),
+                                new LineIndex(source));
+                try {
+                        parser.parseProgram();
+                } catch (final ParseException e) {
+                        assertEquals("expected: ;; received: return at 4:32", e.getMessage());
+                        return;
+                }
+                fail("expected a ParseException");
+        }
+
+        @Test
+        public void testCursorMatchesParseResults() throws ParseException, TokenizerException {
+                final TokenBuffer tokens = new Tokenizer(carProgram(20)).tokenizeProgramBuffer();
+                final ParseResult<Program> expected = new Parser(tokens).parseProgram(0);
+
+                final Parser parser = new Parser(tokens);
+                assertEquals(expected.result, parser.readProgram());
+                assertEquals(expected.position, parser.getPosition());
+        }
+
+        // the cursor is left where the next statement starts
+        @Test
+        public void testReadStmtsInSequence() throws ParseException, TokenizerException {
+                final Parser parser = new Parser(new Tokenizer("println(1); println(2 + 3);").tokenizeBuffer());
+                assertEquals(new PrintlnStmt(new IntegerLiteralExp(1)), parser.readStmt());
+                assertEquals(4, parser.getPosition());
+                parser.setPosition(parser.getPosition() + 1);
+                assertEquals(new PrintlnStmt(new OpExp(new IntegerLiteralExp(2),
+                                                       new PlusOp(),
+                                                       new IntegerLiteralExp(3))),
+                             parser.readStmt());
+                assertEquals(11, parser.getPosition());
+        }
+
+        @Test
+        public void testVardecNeedsVariable() throws TokenizerException {
+                try {
+                        new Parser(new Tokenizer("Int 5").tokenizeBuffer()).readVardec();
+                } catch (final ParseException e) {
+                        assertEquals("expected: VARIABLE token; received: Number(5)", e.getMessage());
+                        return;
+                }
+                fail("expected a ParseException");
+        }
+
+        // the parser accepts what src/main/grammar/jamascript.grammar describes
+
+        public void assertRejected(final String input) throws TokenizerException {
+                try {
+                        new Parser(new Tokenizer(input).tokenizeProgramBuffer()).parseProgram(0);
+                } catch (final ParseException e) {
+                        return;
+                }
+                fail("accepted " + input);
+        }
+
+        @Test
+        public void testGrammarVarInit() throws ParseException, TokenizerException {
+                final Stmt stmt = new Parser(new Tokenizer("{ Dog d = new Dog(); Dog e = new Dog(1 + 2, x); }")
+                                .tokenizeProgramBuffer()).readStmt();
+                assertEquals(2, ((BlockStmt) stmt).stmts.size());
+
+                assertRejected("{ Int x 5; }");
+                assertRejected("{ Int x = 5 }");
+                assertRejected("{ Dog d = new Dog(1 2); }");
+        }
+
+        @Test
+        public void testGrammarElseIsClosed() throws TokenizerException {
+                assertRejected("if (x) { } else println(1);");
+                assertRejected("if (x) println(1); println(2);");
+        }
+
+        @Test
+        public void testGrammarFields() throws ParseException, TokenizerException {
+                final Parser parser = new Parser(new Tokenizer("Int x; y; constructor")
+                                .tokenizeProgramBuffer());
+                final List<Vardec> fields = parser.readVardecsSemicolon();
+                assertEquals(2, fields.size());
+                assertTrue(fields.get(1).type == null);
+                assertEquals(TokenKind.CONSTRUCTOR, parser.getKind(parser.getPosition()));
+
+                assertRejected("class A extends Object { Int 5; constructor() { super(); } } println(1);");
+                assertRejected("class A extends Object { Int x constructor() { super(); } } println(1);");
+        }
+
+        @Test
+        public void testArenaRoundTrip() throws ParseException, TokenizerException {
+                final Program program = new Parser(new Tokenizer(carProgram(50)).tokenizeProgramBuffer())
+                                .parseProgram(0).result;
+                final AstArena arena = AstConverter.toArena(program);
+                assertEquals(program, AstConverter.toProgram(arena));
+        }
+
+        @Test
+        public void testArenaRoundTripExps() throws ParseException, TokenizerException {
+                final Stmt stmt = new Parser(new Tokenizer(
+                                "while (a.f(1, \"x\") < new B(true) * (2 - c)) { println(false); }")
+                                .tokenizeProgramBuffer()).readStmt();
+                final AstArena arena = new AstArena();
+                final int node = AstConverter.add(arena, stmt);
+                assertEquals(stmt, AstConverter.toStmt(arena, node));
+        }
+
+        // children follow their parent and are reached through siblings
+        @Test
+        public void testArenaLayout() throws ParseException, TokenizerException {
+                final Stmt stmt = new Parser(new Tokenizer("println(1 + x);").tokenizeBuffer()).readStmt();
+                final AstArena arena = new AstArena();
+                final int println = AstConverter.add(arena, stmt);
+
+                assertEquals(AstArena.PRINTLN_STMT, arena.kind(println));
+                final int plus = arena.firstChild(println);
+                assertEquals(AstArena.OP_EXP, arena.kind(plus));
+                assertEquals(AstArena.OP_PLUS, arena.payload(plus));
+                assertEquals(AstArena.NONE, arena.nextSibling(plus));
+
+                final AstArena.Node view = arena.node(plus);
+                assertEquals(2, view.childCount());
+                assertEquals(1, view.child(0).payload());
+                assertEquals(AstArena.VARIABLE_EXP, view.child(1).kind());
+                assertEquals("x", view.child(1).name());
+                assertEquals(4, arena.size());
+        }
+
+        // a pass over the arena instead of the objects: count the printlns
+        @Test
+        public void testArenaWalk() throws ParseException, TokenizerException {
+                final Program program = new Parser(new Tokenizer(carProgram(30)).tokenizeProgramBuffer())
+                                .parseProgram(0).result;
+                final AstArena arena = AstConverter.toArena(program);
+                int printlns = 0;
+                for (int node = 0; node < arena.size(); node++) {
+                        if (arena.kind(node) == AstArena.PRINTLN_STMT) {
+                                printlns++;
+                        }
+                }
+                assertEquals(31, printlns);
+        }
+
+        // the generated classes are all alike, so they come out as one
+        @Test
+        public void testNodeFactorySharesSubtrees() throws ParseException, TokenizerException {
+                final TokenBuffer tokens = new Tokenizer(carProgram(20)).tokenizeProgramBuffer();
+                final Parser parser = new Parser(tokens);
+                final NodeFactory factory = new NodeFactory();
+                parser.setNodeFactory(factory);
+                final Program program = parser.parseProgram(0).result;
+
+                assertEquals(new Parser(tokens).parseProgram(0).result, program);
+                assertTrue(program.classes.get(0) == program.classes.get(19));
+                assertTrue(factory.size() < 30);
+        }
+
+        // the typechecker writes into calls, so no two share one
+        @Test
+        public void testNodeFactoryKeepsCallsApart() throws ParseException, TokenizerException {
+                final Parser parser = new Parser(new Tokenizer("{ println(a.f(1)); println(a.f(1)); }")
+                                .tokenizeProgramBuffer());
+                parser.setNodeFactory(new NodeFactory());
+                final BlockStmt block = (BlockStmt) parser.readStmt();
+
+                final PrintlnStmt first = (PrintlnStmt) block.stmts.get(0);
+                final PrintlnStmt second = (PrintlnStmt) block.stmts.get(1);
+                assertEquals(first, second);
+                assertTrue(first != second);
+                assertTrue(first.exp != second.exp);
+                assertTrue(((MethodCallExp) first.exp).target == ((MethodCallExp) second.exp).target);
+        }
+
+        @Test
+        public void testNodeFactorySharesUntypedVardecs() throws ParseException, TokenizerException {
+                final Parser parser = new Parser(new Tokenizer("x, x").tokenizeBuffer());
+                parser.setNodeFactory(new NodeFactory());
+                final List<Vardec> vardecs = parser.readVardecsComma();
+
+                assertEquals(2, vardecs.size());
+                assertTrue(vardecs.get(0).type == null);
+                assertTrue(vardecs.get(0) == vardecs.get(1));
+        }
+
+        @Test(expected = UnsupportedOperationException.class)
+        public void testNodeListsAreUnmodifiable() {
+                final BlockStmt block = new BlockStmt(new ArrayList<Stmt>());
+                block.stmts.add(new PrintlnStmt(new IntegerLiteralExp(1)));
+        }
+
+        // a node keeps its own copy of a list it was built from
+        @Test
+        public void testNodeListsAreCopied() {
+                final List<Stmt> stmts = new ArrayList<Stmt>();
+                stmts.add(new PrintlnStmt(new IntegerLiteralExp(1)));
+                final BlockStmt block = new BlockStmt(stmts);
+                final int hash = block.hashCode();
+                stmts.add(new PrintlnStmt(new IntegerLiteralExp(2)));
+                assertEquals(1, block.stmts.size());
+                assertEquals(hash, block.hashCode());
+                assertEquals(new BlockStmt(stmts.subList(0, 1)), block);
+        }
+
+        @Test
+        public void testCallHashIgnoresTargetType() {
+                final MethodCallExp call = new MethodCallExp(new VariableExp(new Variable("a")),
+                                new MethodName("f"),
+                                new ArrayList<Exp>());
+                final int hash = call.hashCode();
+                call.targetType = new ClassType(new ClassName("A"));
+                assertEquals(hash, call.hashCode());
+        }
+
         // test program err: tokens remaining;
         @Test(expected = ParseException.class)
         public void testProgramErr() throws ParseException {
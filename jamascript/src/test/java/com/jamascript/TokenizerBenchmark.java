@@ -0,0 +1,161 @@
+package com.jamascript;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import com.jamascript.lexer.*;
+
+// Not a unit test: run by hand after `mvn test-compile` with
+//   java -cp target/classes:target/test-classes com.jamascript.TokenizerBenchmark
+public class TokenizerBenchmark {
+    // generated sources we care about are 10 MB and up
+    public static final int INPUT_SIZE = 10 * 1024 * 1024;
+
+    // the scanner should keep up with at least this many MB per second
+    public static final double TARGET_MB_PER_SECOND = 100.0;
+
+    public static final int WARMUP_RUNS = 5;
+    public static final int MEASURED_RUNS = 10;
+
+    // Builds a program made of generated classes, roughly `size` chars long
+    public static String generateProgram(final int size) {
+        final StringBuilder builder = new StringBuilder(size + 256);
+        int classNumber = 0;
+        while (builder.length() < size) {
+            builder.append("class Car").append(classNumber).append(" extends Object {\n");
+            builder.append("    Int speed;\n");
+            builder.append("    Boolean running;\n");
+            builder.append("    constructor(Int initialSpeed, Boolean isRunning) {\n");
+            builder.append("        super(initialSpeed, isRunning);\n");
+            builder.append("        Int limit = ").append(classNumber * 7).append(";\n");
+            builder.append("    }\n");
+            builder.append("    Int accelerate(Int amount) {\n");
+            builder.append("        while (speed <= limit) { speed = speed + amount * 2; }\n");
+            builder.append("        if (speed >= 120) { println(speed); } else { println(limit - speed); }\n");
+            builder.append("        return (speed);\n");
+            builder.append("    }\n");
+            builder.append("}\n");
+            classNumber++;
+        }
+        builder.append("println(0);\n");
+        return builder.toString();
+    }
+
+    // Names only: keywords mixed with identifiers that share their
+    // lengths and first letters, so keyword lookup can't bail out early
+    public static String generateIdentifiers(final int size) {
+        final String[] words = {
+            "classy", "whilst", "Integer", "newValue", "returned", "supper",
+            "elsewhere", "iffy", "truth", "falsehood", "Strings", "printer",
+            "extent", "constructors", "speed", "x", "Int", "new", "if",
+            "class", "super", "String", "Boolean", "while", "return", "true"
+        };
+        final StringBuilder builder = new StringBuilder(size + 32);
+        int index = 0;
+        while (builder.length() < size) {
+            builder.append(words[index % words.length]);
+            if (index % 3 == 0) {
+                builder.append(index % 1000);
+            }
+            builder.append(' ');
+            index++;
+        }
+        return builder.toString();
+    }
+
+    // The generated program with a doc comment on every class and method
+    // and a line comment on most lines, so most of the input is comments
+    public static String generateCommentedProgram(final int size) {
+        final String program = generateProgram(size);
+        final StringBuilder builder = new StringBuilder(size * 2);
+        int lineStart = 0;
+        while (lineStart < program.length() && builder.length() < size) {
+            final int lineEnd = program.indexOf('\n', lineStart) + 1;
+            final String line = program.substring(lineStart, lineEnd);
+            if (line.startsWith("class") || line.startsWith("    Int accelerate")) {
+                builder.append("/**\n");
+                builder.append(" * Generated from the vehicle model; do not edit by hand.\n");
+                builder.append(" * Speeds are in km/h, and every limit is a multiple of 7.\n");
+                builder.append(" */\n");
+            }
+            builder.append(line, 0, line.length() - 1);
+            builder.append("    // checked by the model, see the generator for details\n");
+            lineStart = lineEnd;
+        }
+        builder.append("println(0);\n");
+        return builder.toString();
+    }
+
+    public interface Lexing {
+        // returns the number of tokens
+        public int run() throws TokenizerException;
+    }
+
+    // Lexes the input repeatedly, printing the best run against the target
+    public static void measure(final String label, final String input) throws TokenizerException {
+        measure(label, input.length(), new Lexing() {
+            public int run() throws TokenizerException {
+                return new Tokenizer(input).tokenizeBuffer().size();
+            }
+        });
+    }
+
+    // Same, straight from UTF-8 bytes outside the heap, as with a mapped file
+    public static void measureUtf8(final String label, final String input) throws TokenizerException {
+        final byte[] encoded = input.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer bytes = ByteBuffer.allocateDirect(encoded.length);
+        bytes.put(encoded).flip();
+        measure(label, encoded.length, new Lexing() {
+            public int run() throws TokenizerException {
+                return new Utf8Tokenizer(bytes).tokenizeBuffer().size();
+            }
+        });
+    }
+
+    // Chunked lexing across all available cores
+    public static void measureParallel(final String label, final String input) throws TokenizerException {
+        final ForkJoinPool pool = new ForkJoinPool();
+        try {
+            measure(label, input.length(), new Lexing() {
+                public int run() throws TokenizerException {
+                    return Tokenizer.tokenizeParallel(input, pool).size();
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void measure(final String label, final int size, final Lexing lexing)
+            throws TokenizerException {
+        final double megabytes = size / (1024.0 * 1024.0);
+
+        int tokenCount = 0;
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            tokenCount = lexing.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            final long start = System.nanoTime();
+            tokenCount = lexing.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        final double seconds = best / 1e9;
+        final double throughput = megabytes / seconds;
+        System.out.printf("%s: %.1f MB, %d tokens, best %.1f ms, %.1f MB/s (target %.1f MB/s) %s%n",
+                label, megabytes, tokenCount, best / 1e6, throughput, TARGET_MB_PER_SECOND,
+                throughput >= TARGET_MB_PER_SECOND ? "OK" : "BELOW TARGET");
+    }
+
+    public static void main(final String[] args) throws TokenizerException {
+        measure("program", generateProgram(INPUT_SIZE));
+        measure("identifiers", generateIdentifiers(INPUT_SIZE));
+        measureUtf8("program, UTF-8 bytes", generateProgram(INPUT_SIZE));
+        measure("commented", generateCommentedProgram(INPUT_SIZE));
+        measureUtf8("commented, UTF-8 bytes", generateCommentedProgram(INPUT_SIZE));
+        measureParallel("program, parallel", generateProgram(INPUT_SIZE));
+    }
+}
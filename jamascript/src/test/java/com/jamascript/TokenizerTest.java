@@ -1,9 +1,27 @@
 package com.jamascript;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import com.jamascript.lexer.*;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class TokenizerTest {
@@ -129,7 +147,7 @@ public class TokenizerTest {
     // Test all single symbol token
     @Test
     public void testAllRemainingSymbols() throws TokenizerException {
-        assertTokenizes(", / . == = >= > <= < - * ! + \" ;",
+        assertTokenizes(", / . == = >= > <= < - * ! + ;",
                 new Token[] {
                         new CommaToken(),
                         new DivideToken(),
@@ -144,7 +162,6 @@ public class TokenizerTest {
                         new MultiplyToken(),
                         new NotToken(),
                         new PlusToken(),
-                        new QuotationMarkToken(),
                         new SemicolonToken()
                 });
     }
@@ -165,6 +182,34 @@ public class TokenizerTest {
                 });
     }
 
+    @Test
+    public void testClassKeywords() throws TokenizerException {
+        assertTokenizes("class constructor super",
+                new Token[] {
+                        new ClassToken(),
+                        new ConstructorToken(),
+                        new SuperToken()
+                });
+    }
+
+    // same length or first letter as a keyword, but not a keyword
+    @Test
+    public void testNearKeywordsAreVariables() throws TokenizerException {
+        assertTokenizes("iF Ints nEw truE elsE classes Super strinG println2 constructer",
+                new Token[] {
+                        new VariableToken("iF"),
+                        new VariableToken("Ints"),
+                        new VariableToken("nEw"),
+                        new VariableToken("truE"),
+                        new VariableToken("elsE"),
+                        new VariableToken("classes"),
+                        new VariableToken("Super"),
+                        new VariableToken("strinG"),
+                        new VariableToken("println2"),
+                        new VariableToken("constructer")
+                });
+    }
+
     @Test
     public void testNumbers() throws TokenizerException {
         assertTokenizes("12312 123123",
@@ -225,6 +270,1087 @@ public class TokenizerTest {
                 });
     }
 
+    // operators and names glued together without whitespace
+    @Test
+    public void testNoWhitespace() throws TokenizerException {
+        assertTokenizes("x>=10;y==x<=z=2",
+                new Token[] {
+                        new VariableToken("x"),
+                        new GreaterThanEqualToken(),
+                        new NumberToken("10"),
+                        new SemicolonToken(),
+                        new VariableToken("y"),
+                        new EqualEqualToken(),
+                        new VariableToken("x"),
+                        new LessThanEqualToken(),
+                        new VariableToken("z"),
+                        new EqualToken(),
+                        new NumberToken("2")
+                });
+    }
+
+    @Test
+    public void testNumberThenName() throws TokenizerException {
+        assertTokenizes("12ab3",
+                new Token[] {
+                        new NumberToken("12"),
+                        new VariableToken("ab3")
+                });
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testInvalidAfterTokens() throws TokenizerException {
+        assertTokenizes("x = 1 $", null);
+    }
+
+    @Test
+    public void testLargestNumber() throws TokenizerException {
+        assertTokenizes("2147483647 000000000000000000042",
+                new Token[] {
+                        new NumberToken(2147483647),
+                        new NumberToken(42)
+                });
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testNumberOverflow() throws TokenizerException {
+        assertTokenizes("2147483648", null);
+    }
+
+    // identifiers longer than any keyword are still a single token
+    @Test
+    public void testLongIdentifier() throws TokenizerException {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            name.append("ab1");
+        }
+        assertTokenizes(name + ";",
+                new Token[] {
+                        new VariableToken(name.toString()),
+                        new SemicolonToken()
+                });
+    }
+
+    @Test
+    public void testBufferColumns() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("Int count = 42;").tokenizeBuffer();
+        assertEquals(5, tokens.size());
+        assertEquals(TokenKind.INT, tokens.kind(0));
+        assertEquals(TokenKind.VARIABLE, tokens.kind(1));
+        assertEquals(4, tokens.start(1));
+        assertEquals(5, tokens.length(1));
+        assertEquals("count", tokens.name(1));
+        assertEquals(TokenKind.NUMBER, tokens.kind(3));
+        assertEquals(42, tokens.number(3));
+        assertEquals(TokenKind.SEMICOLON, tokens.kind(4));
+        assertEquals(14, tokens.start(4));
+    }
+
+    // repeated names share one pool entry
+    @Test
+    public void testBufferInternsNames() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("x + y + x").tokenizeBuffer();
+        assertEquals(tokens.payload(0), tokens.payload(4));
+        assertNotEquals(tokens.payload(0), tokens.payload(2));
+    }
+
+    @Test
+    public void testBufferMatchesTokenize() throws TokenizerException {
+        final String input = "class Car extends Object { Int a; } while (a >= 10) println(a);";
+        assertEquals(new Tokenizer(input).tokenize(),
+                new Tokenizer(input).tokenizeBuffer().toList());
+    }
+
+    // tokens without a payload are shared instances
+    @Test
+    public void testSymbolsAreCanonical() throws TokenizerException {
+        final List<Token> tokens = new Tokenizer("; ; while while").tokenize();
+        assertSame(tokens.get(0), tokens.get(1));
+        assertSame(TokenKind.SEMICOLON.token(), tokens.get(0));
+        assertSame(tokens.get(2), tokens.get(3));
+        assertEquals(new WhileToken(), tokens.get(2));
+    }
+
+    // a window smaller than most lexemes forces a refill inside tokens
+    @Test
+    public void testReaderMatchesString() throws TokenizerException {
+        final String input = "class Car extends Object { Int speedLimit; } while (speedLimit >= 1234567) println(speedLimit);";
+        assertEquals(new Tokenizer(input).tokenize(),
+                new Tokenizer(new StringReader(input), 4).tokenize());
+    }
+
+    @Test
+    public void testReaderOffsetsAreAbsolute() throws TokenizerException {
+        final String input = "first   second\n  third";
+        final TokenBuffer tokens = new Tokenizer(new StringReader(input), 4).tokenizeBuffer();
+        assertEquals(3, tokens.size());
+        assertEquals(input.indexOf("second"), tokens.start(1));
+        assertEquals(input.indexOf("third"), tokens.start(2));
+        assertEquals("third", tokens.name(2));
+    }
+
+    @Test
+    public void testChannel() throws TokenizerException {
+        final byte[] bytes = "println(caf\u00e9);".getBytes(StandardCharsets.UTF_8);
+        final Tokenizer tokenizer = new Tokenizer(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        assertArrayEquals(new Token[] {
+                new PrintlnToken(),
+                new LeftParenthesisToken(),
+                new VariableToken("caf\u00e9"),
+                new RightParenthesisToken(),
+                new SemicolonToken() },
+            tokenizer.tokenize().toArray(new Token[0]));
+    }
+
+    @Test
+    public void testPullKinds() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer(new StringReader("x = 42;"), 16);
+        assertEquals(TokenKind.VARIABLE, tokenizer.nextKind());
+        assertEquals("x", tokenizer.getTokenName());
+        assertEquals(TokenKind.EQUAL, tokenizer.nextKind());
+        assertEquals(TokenKind.NUMBER, tokenizer.nextKind());
+        assertEquals(42, tokenizer.getTokenNumber());
+        assertEquals(4, tokenizer.getTokenStart());
+        assertEquals(2, tokenizer.getTokenLength());
+        assertEquals(TokenKind.SEMICOLON, tokenizer.nextKind());
+        assertEquals(null, tokenizer.nextKind());
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testReaderFailure() throws TokenizerException {
+        new Tokenizer(new Reader() {
+            public int read(final char[] buffer, final int offset, final int length) throws IOException {
+                throw new IOException("disk on fire");
+            }
+            public void close() {}
+        }).tokenize();
+    }
+
+    public Utf8Tokenizer utf8(final String input) {
+        return new Utf8Tokenizer(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testUtf8MatchesString() throws TokenizerException {
+        final String input = "class Car extends Object { Int a; constructor() {} } if (a <= 10) println(!a);";
+        assertEquals(new Tokenizer(input).tokenize(), utf8(input).tokenize());
+    }
+
+    // offsets count bytes, names are decoded
+    @Test
+    public void testUtf8NonAscii() throws TokenizerException {
+        final TokenBuffer tokens = utf8("gr\u00f6\u00dfe = \ud835\udc65 + \u0663;").tokenizeBuffer();
+        assertEquals(6, tokens.size());
+        assertEquals("gr\u00f6\u00dfe", tokens.name(0));
+        assertEquals(7, tokens.length(0));
+        assertEquals(8, tokens.start(1));
+        assertEquals("\ud835\udc65", tokens.name(2));
+        assertEquals(4, tokens.length(2));
+        assertEquals(TokenKind.NUMBER, tokens.kind(4));
+        assertEquals(3, tokens.number(4));
+    }
+
+    @Test
+    public void testUtf8MappedFile() throws IOException, TokenizerException {
+        final File file = File.createTempFile("jamascript", ".jama");
+        try {
+            final String input = "Int count = 12;\nprintln(count);\n";
+            final FileOutputStream output = new FileOutputStream(file);
+            output.write(input.getBytes(StandardCharsets.UTF_8));
+            output.close();
+            assertEquals(new Tokenizer(input).tokenize(), Utf8Tokenizer.map(file).tokenize());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testUtf8Malformed() throws TokenizerException {
+        new Utf8Tokenizer(ByteBuffer.wrap(new byte[] { 'x', (byte) 0xC3 })).tokenize();
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testUtf8Invalid() throws TokenizerException {
+        utf8("x \u20ac").tokenize();
+    }
+
+    // lexes `x` followed by the given bytes, which must be rejected with
+    // a message starting with expected
+    public void assertUtf8Rejected(final String expected, final int... sequence) {
+        final byte[] input = new byte[sequence.length + 1];
+        input[0] = 'x';
+        for (int index = 0; index < sequence.length; index++) {
+            input[index + 1] = (byte) sequence[index];
+        }
+        try {
+            new Utf8Tokenizer(ByteBuffer.wrap(input)).tokenize();
+            fail("accepted malformed UTF-8");
+        } catch (final TokenizerException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(expected));
+        }
+    }
+
+    @Test
+    public void testUtf8BadLeadBytes() {
+        assertUtf8Rejected("invalid UTF-8", 0x80);
+        assertUtf8Rejected("invalid UTF-8", 0xBF, 0x80);
+        assertUtf8Rejected("invalid UTF-8", 0xC0, 0xAF);
+        assertUtf8Rejected("invalid UTF-8", 0xC1, 0xBF);
+        assertUtf8Rejected("invalid UTF-8", 0xF5, 0x80, 0x80, 0x80);
+        assertUtf8Rejected("invalid UTF-8", 0xF8, 0x80, 0x80);
+        assertUtf8Rejected("invalid UTF-8", 0xFF);
+    }
+
+    @Test
+    public void testUtf8Overlong() {
+        // `/` as three and four bytes
+        assertUtf8Rejected("overlong UTF-8", 0xE0, 0x80, 0xAF);
+        assertUtf8Rejected("overlong UTF-8", 0xF0, 0x80, 0x80, 0xAF);
+        // U+07FF as three bytes
+        assertUtf8Rejected("overlong UTF-8", 0xE0, 0x9F, 0xBF);
+    }
+
+    @Test
+    public void testUtf8Surrogates() {
+        assertUtf8Rejected("UTF-8 encoded surrogate", 0xED, 0xA0, 0x80);
+        assertUtf8Rejected("UTF-8 encoded surrogate", 0xED, 0xBF, 0xBF);
+    }
+
+    @Test
+    public void testUtf8PastLastCodePoint() {
+        assertUtf8Rejected("UTF-8 past U+10FFFF", 0xF4, 0x90, 0x80, 0x80);
+    }
+
+    @Test
+    public void testUtf8Boundaries() throws TokenizerException {
+        // U+0080, U+07FF, U+0800, U+FFFF, U+10000 and U+10FFFF are all
+        // well formed; none is a letter, so each one stops the name
+        final String input = "x\u0080 x\u07ff x\u0800 x\uffff x\ud800\udc00 x\udbff\udfff";
+        for (final String piece : input.split(" ")) {
+            try {
+                utf8(piece).tokenize();
+            } catch (final TokenizerException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("unexpected character"));
+            }
+        }
+    }
+
+    // names longer than the tokenizer's first char array
+    @Test
+    public void testUtf8LongName() throws TokenizerException {
+        final String input = "abcdefghijklmnopqrstuvwxyzabcdefghijklmn = 1;";
+        assertEquals(new Tokenizer(input).tokenize(), utf8(input).tokenize());
+        assertEquals("abcdefghijklmnopqrstuvwxyzabcdefghijklmn", utf8(input).tokenizeBuffer().name(0));
+    }
+
+    // the string grows the char array, and the name, shorter in chars
+    // but longer in bytes, grows it again
+    @Test
+    public void testUtf8LongNameAfterLongString() throws TokenizerException {
+        final StringBuilder name = new StringBuilder();
+        for (int index = 0; index < 50; index++) {
+            name.append('\u00e9');
+        }
+        final String input = "println(\"a string literal of forty characters\"); " + name + " = 1;";
+        assertEquals(new Tokenizer(input).tokenize(), utf8(input).tokenize());
+        assertEquals(name.toString(), utf8(input).tokenizeBuffer().name(5));
+    }
+
+    @Test
+    public void testUtf8LongNumber() {
+        final String digits = "123456789012345678901234567890123";
+        try {
+            utf8("x = " + digits + ";").tokenize();
+            fail("expected a TokenizerException");
+        } catch (final TokenizerException e) {
+            assertEquals("integer literal out of range: " + digits, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnicodeNames() throws TokenizerException {
+        final String input = "gr\u00f6\u00dfe = \u53d8\u91cf + \ud835\udc65\u0663;";
+        final TokenBuffer tokens = new Tokenizer(input).tokenizeBuffer();
+        assertEquals(6, tokens.size());
+        assertEquals("gr\u00f6\u00dfe", tokens.name(0));
+        assertEquals("\u53d8\u91cf", tokens.name(2));
+        assertEquals("\ud835\udc65\u0663", tokens.name(4));
+        assertEquals(3, tokens.length(4));
+        assertEquals(TokenKind.SEMICOLON, tokens.kind(5));
+    }
+
+    // mathematical digits one and two, outside the BMP
+    @Test
+    public void testSupplementaryDigits() throws TokenizerException {
+        assertTokenizes("\ud835\udfd9\ud835\udfda", new Token[] { new NumberToken(12) });
+    }
+
+    @Test
+    public void testUnicodeWhitespace() throws TokenizerException {
+        assertEquals(new Tokenizer("x = 1;").tokenize(),
+                new Tokenizer("x\u2003=\u20031;").tokenize());
+    }
+
+    @Test
+    public void testSurrogatePairAcrossRefills() throws TokenizerException {
+        final StringBuilder input = new StringBuilder();
+        for (int count = 0; count < 40; count++) {
+            input.append("x\ud835\udc65 ");
+        }
+        assertEquals(new Tokenizer(input.toString()).tokenize(),
+                new Tokenizer(new StringReader(input.toString()), 16).tokenize());
+    }
+
+    @Test
+    public void testUnexpectedSupplementaryCharacter() {
+        try {
+            new Tokenizer("x = \ud83d\ude00;").tokenize();
+        } catch (final TokenizerException e) {
+            assertEquals("unexpected character: \ud83d\ude00", e.getMessage());
+            return;
+        }
+        fail("expected a TokenizerException");
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testLoneSurrogateIsInvalid() throws TokenizerException {
+        assertTokenizes("\ud835", null);
+    }
+
+    @Test
+    public void testSpanPacking() {
+        final long span = Span.pack(123456789, 42);
+        assertEquals(123456789, Span.start(span));
+        assertEquals(42, Span.length(span));
+        assertEquals(123456831, Span.end(span));
+        assertEquals(Span.pack(3, 9), Span.cover(Span.pack(3, 2), Span.pack(10, 2)));
+        assertEquals(TokenBuffer.NO_POSITION, Span.start(Span.NONE));
+    }
+
+    @Test
+    public void testBufferSpans() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("while  (abc)").tokenizeBuffer();
+        assertEquals(Span.pack(0, 5), tokens.span(0));
+        assertEquals(Span.pack(8, 3), tokens.span(2));
+    }
+
+    @Test
+    public void testLineIndex() {
+        final LineIndex lines = new LineIndex("ab\ncd\n\nef");
+        assertEquals(4, lines.lineCount());
+        assertEquals(1, lines.line(0));
+        assertEquals(1, lines.line(2));
+        assertEquals(2, lines.line(3));
+        assertEquals(2, lines.column(4));
+        assertEquals(3, lines.line(6));
+        assertEquals(4, lines.line(7));
+        assertEquals("4:2", lines.describe(Span.pack(8, 1)));
+    }
+
+    @Test
+    public void testLineIndexOverBytes() {
+        final LineIndex lines = new LineIndex(ByteBuffer.wrap("x\ny".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, lines.line(2));
+        assertEquals(1, lines.column(2));
+    }
+
+    @Test
+    public void testSymbolIds() {
+        final SymbolTable symbols = new SymbolTable();
+        final int first = symbols.intern("speed");
+        assertEquals(first, symbols.intern(new char[] { 'a', 's', 'p', 'e', 'e', 'd' }, 1, 5));
+        assertNotEquals(first, symbols.intern("spee"));
+        assertEquals(2, symbols.size());
+        assertEquals("spee", symbols.name(1));
+    }
+
+    // ids stay valid and unique past the initial capacity
+    @Test
+    public void testSymbolTableGrows() {
+        final SymbolTable symbols = new SymbolTable();
+        for (int index = 0; index < 5000; index++) {
+            assertEquals(index, symbols.intern("name" + index));
+        }
+        for (int index = 0; index < 5000; index++) {
+            assertEquals(index, symbols.intern("name" + index));
+            assertEquals("name" + index, symbols.name(index));
+        }
+    }
+
+    // names are the same symbol whichever tokenizer produced them
+    @Test
+    public void testNamesShareSymbols() throws TokenizerException {
+        final TokenBuffer fromChars = new Tokenizer("x speed").tokenizeBuffer();
+        final TokenBuffer fromBytes = utf8("speed x").tokenizeBuffer();
+        assertEquals(fromChars.symbol(1), fromBytes.symbol(0));
+        assertEquals(new VariableToken("speed").id, fromChars.symbol(1));
+        assertEquals(new VariableToken("speed"), new VariableToken(fromBytes.symbol(0)));
+    }
+
+    // println("hi there");
+    @Test
+    public void testStringLiteral() throws TokenizerException {
+        assertTokenizes("println(\"hi there\");",
+                new Token[] {
+                        new PrintlnToken(),
+                        new LeftParenthesisToken(),
+                        new StringValToken("hi there"),
+                        new RightParenthesisToken(),
+                        new SemicolonToken()
+                });
+    }
+
+    @Test
+    public void testEmptyStringLiterals() throws TokenizerException {
+        assertTokenizes("\"\"\"x\"", new Token[] { new StringValToken(""), new StringValToken("x") });
+    }
+
+    // a literal without escapes is a view of the input, not a copy
+    @Test
+    public void testStringIsSlice() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("x = \"abc\";").tokenizeBuffer();
+        assertTrue(tokens.string(2) instanceof SourceSlice);
+        assertEquals("abc", tokens.string(2).toString());
+        assertEquals(Span.pack(4, 5), tokens.span(2));
+    }
+
+    @Test
+    public void testStringEscapes() throws TokenizerException {
+        assertTokenizes("\"say \\\"hi\\\"\\n\\\\\"",
+                new Token[] { new StringValToken("say \"hi\"\n\\") });
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testInvalidEscape() throws TokenizerException {
+        assertTokenizes("\"\\q\"", null);
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testUnterminatedString() throws TokenizerException {
+        assertTokenizes("println(\"oops);", null);
+    }
+
+    @Test
+    public void testStringAcrossRefills() throws TokenizerException {
+        final String input = "x = \"a fairly long literal\" + \"with \\\"escapes\\\"\";";
+        assertEquals(new Tokenizer(input).tokenize(),
+                new Tokenizer(new StringReader(input), 4).tokenize());
+    }
+
+    @Test
+    public void testUtf8String() throws TokenizerException {
+        assertEquals(new Tokenizer("\"caf\u00e9 \\\"ok\\\"\" y").tokenize(),
+                utf8("\"caf\u00e9 \\\"ok\\\"\" y").tokenize());
+    }
+
+    @Test
+    public void testUtf8BackslashAtEnd() {
+        try {
+            utf8("\"\\").tokenize();
+            fail("accepted an unterminated string literal");
+        } catch (final TokenizerException e) {
+            assertEquals("unterminated string literal", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLineComments() throws TokenizerException {
+        assertEquals(new Tokenizer("x = 1;\ny = 2;").tokenize(),
+                new Tokenizer("x = 1; // x / y\ny = 2; //").tokenize());
+    }
+
+    @Test
+    public void testBlockComments() throws TokenizerException {
+        assertEquals(new Tokenizer("x = 1 / y;").tokenize(),
+                new Tokenizer("x /* a * b / c\n*/=/**/1 /***/ / y/* // */;").tokenize());
+    }
+
+    @Test
+    public void testCommentSpans() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("a /* b */ c // d\ne").tokenizeBuffer();
+        assertEquals(3, tokens.size());
+        assertEquals(Span.pack(10, 1), tokens.span(1));
+        assertEquals(Span.pack(17, 1), tokens.span(2));
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testUnterminatedComment() throws TokenizerException {
+        new Tokenizer("x = 1; /* never closed *").tokenize();
+    }
+
+    @Test
+    public void testRecoveringUnterminatedComment() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer("x /* open");
+        final TokenBuffer tokens = tokenizer.tokenizeRecovering();
+        assertEquals(2, tokens.size());
+        assertEquals(TokenKind.ERROR, tokens.kind(1));
+        assertEquals(Span.pack(2, 7), tokens.span(1));
+        assertEquals("unterminated comment", tokenizer.getDiagnostics().get(0).message);
+    }
+
+    @Test
+    public void testCommentsAcrossRefills() throws TokenizerException {
+        final StringBuilder input = new StringBuilder();
+        for (int count = 0; count < 20; count++) {
+            input.append("x = ").append(count).append("; // a line comment longer than the window\n");
+            input.append("/* a block comment * longer than / the window **/ y");
+            input.append(count).append(" = x;\n");
+        }
+        final TokenBuffer expected = new Tokenizer(input.toString()).tokenizeBuffer();
+        final TokenBuffer streamed = new Tokenizer(new StringReader(input.toString()), 16).tokenizeBuffer();
+        assertEquals(expected.toList(), streamed.toList());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.span(index), streamed.span(index));
+        }
+    }
+
+    @Test
+    public void testRecoveringCommentAcrossRefills() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer(new StringReader("x /* never closed, and longer than the window"), 16);
+        final TokenBuffer tokens = tokenizer.tokenizeRecovering();
+        assertEquals(Span.pack(2, 43), tokens.span(1));
+    }
+
+    @Test
+    public void testUtf8Comments() throws TokenizerException {
+        final String input = "x = 1; // gr\u00f6\u00dfe *\r\n/* \u53d8\u91cf ** / */ y = x /*\ud835\udc65*/ / 2;" +
+            "        \t\t\n\n    z = 3; /* a long comment that spans more than one eight byte word */ // end";
+        assertEquals(new Tokenizer(input).tokenize(), utf8(input).tokenize());
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testUtf8UnterminatedComment() throws TokenizerException {
+        utf8("x = 1; /* never closed, and longer than a word *").tokenize();
+    }
+
+    @Test
+    public void testChunkStartsSkipComments() {
+        final String input = "class A extends B {} // class X\n/* class Y } class Z */ class C extends D {}";
+        assertArrayEquals(new int[] { 0, input.indexOf("class C") },
+                Tokenizer.findChunkStarts(input, 1));
+    }
+
+    // `class` inside braces or a string literal is not a place to cut
+    @Test
+    public void testChunkStarts() {
+        final String input = "class A extends B { class } println(\"class\"); class C extends D {} classy; class E";
+        assertArrayEquals(new int[] { 0, input.indexOf("class C"), input.indexOf("class E") },
+                Tokenizer.findChunkStarts(input, 1));
+        assertArrayEquals(new int[] { 0, input.indexOf("class E") },
+                Tokenizer.findChunkStarts(input, input.indexOf("class E") - 1));
+    }
+
+    public String generateClasses(final int classes) {
+        final StringBuilder builder = new StringBuilder();
+        for (int number = 0; number < classes; number++) {
+            builder.append("class Car").append(number).append(" extends Object {\n");
+            builder.append("    constructor(Int speed) { super(speed); println(\"class { \\\"\"); }\n");
+            builder.append("    Int go() { return (speed * ").append(number).append("); }\n");
+            builder.append("}\n");
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws TokenizerException {
+        final String input = generateClasses(5000);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final TokenBuffer parallel = Tokenizer.tokenizeParallel(input, pool);
+            final TokenBuffer sequential = new Tokenizer(input).tokenizeBuffer();
+            assertEquals(sequential.size(), parallel.size());
+            for (int index = 0; index < sequential.size(); index++) {
+                assertEquals(sequential.span(index), parallel.span(index));
+            }
+            assertEquals(sequential.toList(), parallel.toList());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testParallelReportsErrors() throws TokenizerException {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Tokenizer.tokenizeParallel(generateClasses(3000) + "$", pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // relexing after an edit gives the same tokens and spans as lexing the
+    // edited text from scratch
+    public void assertRelexes(final String before,
+                              final int editOffset,
+                              final int removedLength,
+                              final String insertedText) throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer(before);
+        final TokenBuffer old = new Tokenizer(before).tokenizeBuffer();
+        final TokenBuffer relexed = tokenizer.relex(old, editOffset, removedLength, insertedText);
+
+        final String after = before.substring(0, editOffset) + insertedText +
+            before.substring(editOffset + removedLength);
+        final TokenBuffer expected = new Tokenizer(after).tokenizeBuffer();
+        assertEquals(expected.toList(), relexed.toList());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.span(index), relexed.span(index));
+        }
+    }
+
+    @Test
+    public void testRelexRename() throws TokenizerException {
+        assertRelexes("Int speed = 5; println(speed);", 4, 5, "velocity");
+    }
+
+    @Test
+    public void testRelexMergesTokens() throws TokenizerException {
+        assertRelexes("if (a = b) println(a);", 7, 0, "=");
+        assertRelexes("abc def;", 3, 1, "");
+    }
+
+    @Test
+    public void testRelexSplitsToken() throws TokenizerException {
+        assertRelexes("abcdef;", 3, 0, " ");
+    }
+
+    @Test
+    public void testRelexOpensString() throws TokenizerException {
+        assertRelexes("x = \"a\"; y = b; z = c;", 13, 1, "\"b; z = \"");
+    }
+
+    @Test
+    public void testRelexAtEnds() throws TokenizerException {
+        assertRelexes("a + b", 0, 0, "c ");
+        assertRelexes("a + b", 5, 0, " * 2");
+        assertRelexes("a + b  ", 7, 0, "c");
+        assertRelexes("a + b", 0, 5, "");
+    }
+
+    // tokens after the edit are reused, not lexed again
+    @Test
+    public void testRelexReusesTail() throws TokenizerException {
+        final String before = "x = 1; println(\"tail\");";
+        final Tokenizer tokenizer = new Tokenizer(before);
+        final TokenBuffer old = new Tokenizer(before).tokenizeBuffer();
+        final TokenBuffer relexed = tokenizer.relex(old, 4, 1, "100");
+        assertSame(old.string(old.size() - 3), relexed.string(relexed.size() - 3));
+        assertEquals(Span.start(old.span(old.size() - 1)) + 2, relexed.start(relexed.size() - 1));
+    }
+
+    // the tokenizer keeps the edited text for the next edit
+    @Test
+    public void testRelexTwice() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer("a = b;");
+        final TokenBuffer first = tokenizer.relex(new Tokenizer("a = b;").tokenizeBuffer(), 4, 1, "c + d");
+        final TokenBuffer second = tokenizer.relex(first, 0, 1, "total");
+        assertEquals(new Tokenizer("total = c + d;").tokenize(), second.toList());
+    }
+
+    // the same for tokens classified by the program-wide name rules
+    public void assertRelexesProgram(final String before,
+                                     final int editOffset,
+                                     final int removedLength,
+                                     final String insertedText) throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer(before);
+        final TokenBuffer old = new Tokenizer(before).tokenizeProgramBuffer();
+        final TokenBuffer relexed = tokenizer.relexProgram(old, editOffset, removedLength, insertedText);
+
+        final String after = before.substring(0, editOffset) + insertedText +
+            before.substring(editOffset + removedLength);
+        final TokenBuffer expected = new Tokenizer(after).tokenizeProgramBuffer();
+        assertEquals(expected.toList(), relexed.toList());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.kind(index), relexed.kind(index));
+            assertEquals(expected.span(index), relexed.span(index));
+        }
+    }
+
+    // an edit changes what the untouched names next to it are
+    @Test
+    public void testRelexProgramReclassifiesAfterEdit() throws TokenizerException {
+        assertRelexesProgram("x = Dog(1); y = 2;", 4, 0, "new ");
+        assertRelexesProgram("d bark(); y = 2;", 1, 1, ".");
+        assertRelexesProgram("Int fetch(Int times) {}", 0, 4, "");
+        assertRelexesProgram("Dog fetch(Int times) {}", 0, 3, "x y");
+    }
+
+    @Test
+    public void testRelexProgramReclassifiesBeforeEdit() throws TokenizerException {
+        assertRelexesProgram("Dog d = new Dog(3);", 3, 2, "");
+        assertRelexesProgram("Dog = new Dog(3);", 3, 0, " d");
+        assertRelexesProgram("Int fetch; y = 1;", 9, 1, "(Int times)");
+        assertRelexesProgram("Int fetch(Int times) {}", 9, 1, " ");
+    }
+
+    @Test
+    public void testRelexProgramClasses() throws TokenizerException {
+        final String before = generateClasses(20);
+        final int edit = before.indexOf("extends") + "extends ".length();
+        assertRelexesProgram(before, edit, 0, "Base");
+        assertRelexesProgram(before, before.indexOf('('), 0, "x");
+        assertRelexesProgram(before, 0, 0, "new ");
+    }
+
+    // a failed relex leaves the tokenizer on the text old was lexed from
+    @Test
+    public void testRelexFailureKeepsText() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer("a = b;");
+        final TokenBuffer old = new Tokenizer("a = b;").tokenizeBuffer();
+        try {
+            tokenizer.relex(old, 4, 1, "$$$");
+            fail("relexed an invalid character");
+        } catch (final TokenizerException e) {
+            // expected
+        }
+        final TokenBuffer relexed = tokenizer.relex(old, 4, 1, "c + d");
+        assertEquals(new Tokenizer("a = c + d;").tokenize(), relexed.toList());
+    }
+
+    @Test
+    public void testRelexInsideComment() throws TokenizerException {
+        assertRelexes("a = 1; /* b = 2; */ c = 3;", 10, 1, "*/ d /*");
+        assertRelexes("a = 1; /* b = 2; */ c = 3;", 7, 2, "");
+        assertRelexes("a = 1; /* b = 2; */ c = 3;", 10, 1, "bb");
+        assertRelexes("a = 1; b = 2; c = 3;", 7, 0, "//");
+        assertRelexes("a = 1 / b; c */ d;", 7, 0, "*");
+    }
+
+    // Dog d = new Dog(3); d.bark(); Dog fetch(Int times)
+    @Test
+    public void testProgramClassifiesNames() throws TokenizerException {
+        assertArrayEquals(new Token[] {
+                new ClassNameToken("Dog"),
+                new VariableToken("d"),
+                new EqualToken(),
+                new NewToken(),
+                new ClassNameToken("Dog"),
+                new LeftParenthesisToken(),
+                new NumberToken(3),
+                new RightParenthesisToken(),
+                new SemicolonToken(),
+                new VariableToken("d"),
+                new DotToken(),
+                new MethodNameToken("bark"),
+                new LeftParenthesisToken(),
+                new RightParenthesisToken(),
+                new SemicolonToken(),
+                new ClassNameToken("Dog"),
+                new MethodNameToken("fetch"),
+                new LeftParenthesisToken(),
+                new IntToken(),
+                new VariableToken("times"),
+                new RightParenthesisToken() },
+            new Tokenizer("Dog d = new Dog(3); d.bark(); Dog fetch(Int times)")
+                .tokenizeProgram().toArray(new Token[0]));
+    }
+
+    // without a type in front, a name before `(` stays a variable
+    @Test
+    public void testProgramKeepsVariables() throws TokenizerException {
+        assertEquals(new Tokenizer("println(x); x = (y);").tokenize(),
+                new Tokenizer("println(x); x = (y);").tokenizeProgram());
+    }
+
+    // reads source to the end, checking it against tokens
+    public void assertSourceMatches(final TokenBuffer tokens, final TokenSource source) throws TokenizerException {
+        for (int index = 0; index < tokens.size(); index++) {
+            assertEquals(index, source.position());
+            assertEquals(tokens.kind(index), source.peek(0));
+            assertEquals(tokens.span(index), source.peekSpan(0));
+            if (tokens.kind(index) == TokenKind.STRING_VALUE) {
+                assertEquals(tokens.string(index).toString(), source.peekString(0).toString());
+            } else {
+                assertEquals(tokens.payload(index), source.peekPayload(0));
+            }
+            source.advance();
+        }
+        assertEquals(null, source.peek(0));
+    }
+
+    @Test
+    public void testSourcePeeks() throws TokenizerException {
+        final TokenSource source = new LazyTokenSource(new Tokenizer("x = 12;"), false);
+        assertEquals(TokenKind.NUMBER, source.peek(2));
+        assertEquals(12, source.peekPayload(2));
+        assertEquals(0, source.position());
+        assertEquals(TokenKind.VARIABLE, source.peek(0));
+        source.advance();
+        assertEquals(1, source.position());
+        assertEquals(TokenKind.EQUAL, source.peek(0));
+        assertEquals(TokenKind.SEMICOLON, source.peek(2));
+        assertEquals(null, source.peek(3));
+    }
+
+    @Test
+    public void testLazySourceMatchesBuffer() throws TokenizerException {
+        final String input = generateClasses(300);
+        assertSourceMatches(new Tokenizer(input).tokenizeBuffer(),
+                new LazyTokenSource(new Tokenizer(input), false));
+    }
+
+    @Test
+    public void testLazySourceClassifiesNames() throws TokenizerException {
+        final String input = "Dog d = new Dog(3); d.bark(); Dog fetch(Int times) " + generateClasses(10);
+        assertSourceMatches(new Tokenizer(input).tokenizeProgramBuffer(),
+                new LazyTokenSource(new Tokenizer(input), true));
+    }
+
+    @Test
+    public void testPipelinedSourceMatchesBuffer() throws TokenizerException {
+        final String input = generateClasses(3000);
+        final PipelinedTokenSource source = new PipelinedTokenSource(new Tokenizer(input), true);
+        try {
+            assertSourceMatches(new Tokenizer(input).tokenizeProgramBuffer(), source);
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testPipelinedSourceReportsErrors() throws TokenizerException {
+        final PipelinedTokenSource source =
+            new PipelinedTokenSource(new Tokenizer(generateClasses(100) + "$"), false);
+        try {
+            while (source.peek(0) != null) {
+                source.advance();
+            }
+        } finally {
+            source.close();
+        }
+    }
+
+    // an unchecked failure on the lexer thread reaches the reader instead
+    // of leaving it waiting
+    @Test(timeout = 10000, expected = IllegalStateException.class)
+    public void testPipelinedSourceReportsUncheckedFailures() throws TokenizerException {
+        final PipelinedTokenSource source = new PipelinedTokenSource(new Tokenizer(new Reader() {
+            public int read(final char[] buffer, final int offset, final int length) {
+                throw new IllegalStateException("reader broke");
+            }
+            public void close() {}
+        }), false);
+        try {
+            source.peek(1);
+        } finally {
+            source.close();
+        }
+    }
+
+    public Set<Thread> lexerThreads() {
+        final Set<Thread> threads = new HashSet<Thread>();
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("jamascript-lexer") && thread.isAlive()) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    // starts a source and drops it unread and unclosed
+    public void abandonPipelinedSource() throws TokenizerException {
+        new PipelinedTokenSource(new Tokenizer(generateClasses(3000)), false).peek(0);
+    }
+
+    // a lexer stalled on a source nobody holds any more stops by itself
+    @Test(timeout = 30000)
+    public void testPipelinedSourceStopsWhenAbandoned() throws TokenizerException, InterruptedException {
+        final Set<Thread> before = lexerThreads();
+        abandonPipelinedSource();
+        final Set<Thread> started = lexerThreads();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+        final Thread producer = started.iterator().next();
+        while (producer.isAlive()) {
+            System.gc();
+            producer.join(100);
+        }
+    }
+
+    public File temporaryDirectory() throws IOException {
+        final File directory = File.createTempFile("jamascript", "cache");
+        directory.delete();
+        directory.mkdir();
+        return directory;
+    }
+
+    public void deleteDirectory(final File directory) {
+        for (final File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testCacheRoundTrip() throws IOException, TokenizerException {
+        final File directory = temporaryDirectory();
+        try {
+            final String source = "class Dog extends Object { constructor() { super(); } }\n" +
+                "Dog d = new Dog(); println(\"caf\u00e9 \\\"ok\\\"\"); x = -7 + 2147483647;";
+            final TokenCache cache = new TokenCache(directory, 1024 * 1024);
+            assertEquals(null, cache.load(source));
+
+            final TokenBuffer lexed = cache.tokenize(source);
+            final TokenBuffer loaded = cache.load(source);
+            assertEquals(lexed.toList(), loaded.toList());
+            for (int index = 0; index < lexed.size(); index++) {
+                assertEquals(lexed.span(index), loaded.span(index));
+            }
+            assertEquals(lexed.toList(), cache.tokenize(source).toList());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testCacheIgnoresCorruptFiles() throws IOException, TokenizerException {
+        final File directory = temporaryDirectory();
+        try {
+            final TokenCache cache = new TokenCache(directory, 1024 * 1024);
+            cache.tokenize("println(x);");
+            final File stored = directory.listFiles()[0];
+            final FileOutputStream output = new FileOutputStream(stored);
+            output.write(new byte[] { 'J', 'T', 'K', '2', (byte) 0xFF });
+            output.close();
+
+            assertEquals(null, cache.load("println(x);"));
+            assertEquals(new Tokenizer("println(x);").tokenize(), cache.tokenize("println(x);").toList());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // a count the file cannot hold is not allocated
+    @Test
+    public void testCacheIgnoresHugeCounts() throws IOException, TokenizerException {
+        final File directory = temporaryDirectory();
+        try {
+            final TokenCache cache = new TokenCache(directory, 1024 * 1024);
+            cache.tokenize("println(x);");
+            final File stored = directory.listFiles()[0];
+            final byte[] version = TokenCache.VERSION.getBytes(StandardCharsets.UTF_8);
+            final FileOutputStream output = new FileOutputStream(stored);
+            output.write(new byte[] { 'J', 'T', 'K', '2', (byte) version.length });
+            output.write(version);
+            // no names, then 2^28 tokens
+            output.write(new byte[] { 0, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01 });
+            output.close();
+
+            assertEquals(null, cache.load("println(x);"));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // writers each use a temporary file of their own, and leave none behind
+    @Test
+    public void testCacheLeavesNoTemporaryFiles() throws IOException, TokenizerException {
+        final File directory = temporaryDirectory();
+        try {
+            final TokenCache cache = new TokenCache(directory, 1024 * 1024);
+            final TokenBuffer tokens = new Tokenizer("println(x);").tokenizeProgramBuffer();
+            cache.store("println(x);", tokens);
+            cache.store("println(x);", tokens);
+            assertEquals(1, directory.listFiles().length);
+            assertEquals(tokens.toList(), cache.load("println(x);").toList());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // a file written by another version of the lexer is a miss
+    @Test
+    public void testCacheIgnoresOtherLexerVersions() throws IOException, TokenizerException {
+        final File directory = temporaryDirectory();
+        try {
+            final TokenCache cache = new TokenCache(directory, 1024 * 1024);
+            cache.tokenize("println(x);");
+            final File stored = directory.listFiles()[0];
+            final byte[] bytes = Files.readAllBytes(stored.toPath());
+            final byte[] version = TokenCache.VERSION.getBytes(StandardCharsets.UTF_8);
+            final int at = new String(bytes, StandardCharsets.ISO_8859_1)
+                .indexOf(new String(version, StandardCharsets.ISO_8859_1));
+            assertTrue(at > 0);
+            bytes[at + version.length - 1]++;
+            Files.write(stored.toPath(), bytes);
+
+            assertEquals(null, cache.load("println(x);"));
+            assertEquals(new Tokenizer("println(x);").tokenize(), cache.tokenize("println(x);").toList());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // least recently used entries go first once the cap is passed
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() throws IOException, TokenizerException {
+        final File directory = temporaryDirectory();
+        try {
+            final TokenCache cache = new TokenCache(directory, 1024 * 1024);
+            cache.tokenize("Int first = 1111111;");
+            final File first = directory.listFiles()[0];
+            final long size = first.length();
+            first.setLastModified(System.currentTimeMillis() - 60000);
+
+            cache.tokenize("Int second = 2222222;");
+            assertEquals(2, directory.listFiles().length);
+
+            final TokenCache smaller = new TokenCache(directory, size + 1);
+            smaller.tokenize("Int third = 3333333;");
+            assertEquals(1, directory.listFiles().length);
+            assertTrue(smaller.load("Int third = 3333333;") != null);
+            assertEquals(null, smaller.load("Int first = 1111111;"));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // every error is reported and lexing carries on after each
+    @Test
+    public void testRecoveringCollectsAllErrors() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer("x = 1 $$ + @y;\nz = 99999999999;");
+        final TokenBuffer tokens = tokenizer.tokenizeRecovering();
+        assertArrayEquals(new Token[] {
+                new VariableToken("x"),
+                new EqualToken(),
+                new NumberToken(1),
+                new ErrorToken(),
+                new PlusToken(),
+                new ErrorToken(),
+                new VariableToken("y"),
+                new SemicolonToken(),
+                new VariableToken("z"),
+                new EqualToken(),
+                new ErrorToken(),
+                new SemicolonToken() },
+            tokens.toList().toArray(new Token[0]));
+        assertEquals(Span.pack(6, 2), tokens.span(3));
+
+        final List<Diagnostic> diagnostics = tokenizer.getDiagnostics();
+        assertEquals(3, diagnostics.size());
+        assertEquals(new Diagnostic(Span.pack(6, 2), "unexpected character: $$"), diagnostics.get(0));
+        assertEquals(new Diagnostic(Span.pack(11, 1), "unexpected character: @"), diagnostics.get(1));
+        assertEquals("2:5: integer literal out of range: 99999999999",
+                diagnostics.get(2).describe(new LineIndex("x = 1 $$ + @y;\nz = 99999999999;")));
+    }
+
+    @Test
+    public void testRecoveringBadStrings() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer("\"a\\qb\" ok \"open");
+        final TokenBuffer tokens = tokenizer.tokenizeRecovering();
+        assertEquals(3, tokens.size());
+        assertEquals(TokenKind.ERROR, tokens.kind(0));
+        assertEquals(TokenKind.VARIABLE, tokens.kind(1));
+        assertEquals(Span.pack(10, 5), tokens.span(2));
+        assertEquals("unterminated string literal", tokenizer.getDiagnostics().get(1).message);
+    }
+
+    @Test
+    public void testRecoveringWithoutErrors() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer("println(1);");
+        assertEquals(new Tokenizer("println(1);").tokenize(), tokenizer.tokenizeRecovering().toList());
+        assertTrue(tokenizer.getDiagnostics().isEmpty());
+    }
+
     @Test(expected = TokenizerException.class)
     public void testInvalid() throws TokenizerException {
         assertTokenizes("$", null);
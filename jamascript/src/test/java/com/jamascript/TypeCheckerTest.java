@@ -1,5 +1,6 @@
 package com.jamascript;
 
+import com.jamascript.lexer.*;
 import com.jamascript.parser.*;
 import com.jamascript.parser.expressions.*;
 import com.jamascript.parser.classInformation.*;
@@ -10,6 +11,7 @@ import com.jamascript.typechecker.*;
 import com.jamascript.typechecker.types.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 import java.util.Map;
@@ -26,6 +28,55 @@ public class TypeCheckerTest {
                                 new ExpStmt(new IntegerLiteralExp(0))));
         }
 
+        // typechecks source with spans, expecting a TypeErrorException
+        public static TypeErrorException typeErrorIn(final String source)
+                        throws ParseException, TokenizerException {
+                final Parser parser = new Parser(new Tokenizer(source).tokenizeProgramBuffer());
+                final SourceSpans spans = new SourceSpans();
+                parser.setSourceSpans(spans);
+                final Program program = parser.parseProgram(0).result;
+                try {
+                        new TypeChecking(program, spans, new LineIndex(source))
+                                .returnEnvOfStmt(program.entryPoint, new HashMap<Variable, Type>(),
+                                                 null, null);
+                } catch (final TypeErrorException e) {
+                        return e;
+                }
+                fail("expected a TypeErrorException");
+                return null;
+        }
+
+        // errors are placed at the innermost node they were found in
+        @Test
+        public void testTypeErrorLocation() throws ParseException, TokenizerException {
+                final String source = "{\n    Int x = 1;\n    println(x + true);\n}";
+                final TypeErrorException e = typeErrorIn(source);
+                assertEquals(Span.pack(source.indexOf("x + true"), 8), e.span);
+                assertEquals("Operand type mismatch for + at 3:13", e.getMessage());
+        }
+
+        @Test
+        public void testDuplicateClassLocation() throws ParseException, TokenizerException {
+                final String source =
+                        "class A extends Object { constructor() { super(); } }\n" +
+                        "class A extends Object { constructor() { super(); } }\n" +
+                        "println(1);";
+                assertEquals("Duplicate class name: ClassName(A) at 2:1", typeErrorIn(source).getMessage());
+        }
+
+        // without spans, messages are as they were
+        @Test
+        public void testTypeErrorWithoutSpans() {
+                try {
+                        emptyTypechecker().isEqualOrSubtypeOf(new IntType(), new BoolType());
+                        fail("expected a TypeErrorException");
+                } catch (final TypeErrorException e) {
+                        assertEquals(Span.NONE, e.span);
+                        assertEquals("incompatible types: " + new IntType() + ", " + new BoolType(),
+                                     e.getMessage());
+                }
+        }
+
         // test exp error: exp doesn't exist
         @Test(expected = TypeErrorException.class)
         public void testExpError() throws TypeErrorException {